@@ -10,5 +10,43 @@ public interface HistoryManager {
 
     void remove(int id);
 
+    /**
+     * @return история в порядке просмотра; последующие просмотры возвращенный список не меняют
+     */
     List<Task> getHistory();
+
+    /**
+     * Возвращает страницу истории
+     *
+     * @param offset сколько задач пропустить от начала истории
+     * @param limit  наибольшее количество задач на странице
+     * @return список задач в порядке просмотра
+     */
+    default List<Task> getHistory(int offset, int limit) {
+        List<Task> history = getHistory();
+        int from = Math.min(Math.max(offset, 0), history.size());
+        return history.subList(from, from + Math.min(Math.max(limit, 0), history.size() - from));
+    }
+
+    /**
+     * @param count наибольшее количество задач
+     * @return последние просмотренные задачи в порядке просмотра
+     */
+    default List<Task> getRecentHistory(int count) {
+        List<Task> history = getHistory();
+        return history.subList(history.size() - Math.min(Math.max(count, 0), history.size()), history.size());
+    }
+
+    /**
+     * Ждет, пока будут применены все просмотры и удаления, записанные до вызова.
+     * Менеджеры, которые применяют их сразу, ничего не делают
+     */
+    default void flush() {
+    }
+
+    /**
+     * Освобождает ресурсы менеджера, например фоновый поток. Менеджеры без таких ресурсов ничего не делают
+     */
+    default void close() {
+    }
 }
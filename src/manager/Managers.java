@@ -3,9 +3,12 @@ package manager;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import manager.adapter.DurationAdapter;
+import manager.adapter.IntSetAdapter;
 import manager.adapter.LocalDateTimeAdapter;
+import manager.memory.history.AsyncHistoryManager;
 import manager.memory.history.InMemoryHistoryManager;
 import manager.web.HttpTaskManager;
+import util.IntSet;
 
 import java.net.URISyntaxException;
 import java.time.Duration;
@@ -25,10 +28,30 @@ public class Managers {
         return new InMemoryHistoryManager();
     }
 
+    /**
+     * Создает историю просмотров, в которой хранится не больше capacity задач
+     *
+     * @param capacity наибольшее количество задач в истории
+     * @return менеджер истории
+     */
+    public static HistoryManager getDefaultHistory(int capacity) {
+        return new InMemoryHistoryManager(capacity);
+    }
+
+    /**
+     * Создает историю просмотров, которая обновляется в фоновом потоке и не задерживает получение задач
+     *
+     * @return менеджер истории
+     */
+    public static HistoryManager getAsyncHistory() {
+        return new AsyncHistoryManager(getDefaultHistory());
+    }
+
     public static Gson getGson() {
         GsonBuilder gsonBuilder = new GsonBuilder();
         gsonBuilder.registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter().nullSafe());
         gsonBuilder.registerTypeAdapter(Duration.class, new DurationAdapter().nullSafe());
+        gsonBuilder.registerTypeAdapter(IntSet.class, new IntSetAdapter().nullSafe());
         return gsonBuilder.create();
     }
 }
@@ -1,10 +1,17 @@
 package manager;
 
+import manager.event.TaskEventListener;
 import task.Epic;
 import task.Subtask;
 import task.Task;
+import task.TaskStatus;
+import task.TaskType;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 public interface TaskManager {
     List<Task> getTasks();
@@ -15,6 +22,77 @@ public interface TaskManager {
 
     List<Task> getPrioritizedTasks();
 
+    /**
+     * Возвращает задачи, эпики и подзадачи с указанным статусом
+     *
+     * @param status статус задачи
+     * @return список задач: сначала задачи, затем подзадачи, затем эпики
+     */
+    List<Task> getTasksByStatus(TaskStatus status);
+
+    List<Task> getTasksByStatus(TaskType type, TaskStatus status);
+
+    int getStatusCount(TaskType type, TaskStatus status);
+
+    /**
+     * Ищет задачи, эпики и подзадачи, в названии или описании которых есть все слова запроса.
+     * Последнее слово запроса может быть началом слова. Совпадения в названии ценятся выше, чем в описании
+     *
+     * @param query строка запроса
+     * @param limit наибольшее количество задач в ответе
+     * @return найденные задачи, лучшие совпадения первыми
+     */
+    List<Task> search(String query, int limit);
+
+    /**
+     * Находит самое раннее время, на которое можно поставить задачу продолжительностью duration
+     * так, чтобы она не пересекалась с задачами и подзадачами и целиком лежала в интервале [from, to)
+     *
+     * @param duration продолжительность задачи
+     * @param from     начало интервала поиска
+     * @param to       конец интервала поиска (не включается)
+     * @return время начала, кратное минуте, или null, если свободного времени нет
+     */
+    LocalDateTime findFreeSlot(Duration duration, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Считает загрузку расписания задачами и подзадачами за интервал [from, to) по 15-минутным слотам
+     *
+     * @param from начало интервала
+     * @param to   конец интервала (не включается)
+     * @return доля занятых слотов от 0 до 1
+     */
+    double getUtilization(LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Строит почасовую карту занятости за дни с from по to включительно
+     *
+     * @param from первый день
+     * @param to   последний день
+     * @return для каждого дня — 24 числа, количество занятых 15-минутных слотов в каждом часе (от 0 до 4)
+     * @throws IllegalArgumentException если период длиннее {@link manager.memory.index.OccupancyIndex#MAX_HEATMAP_DAYS} дней
+     */
+    Map<LocalDate, int[]> getOccupancyHeatmap(LocalDate from, LocalDate to);
+
+    /**
+     * Возвращает задачи, эпики и подзадачи, время начала которых попадает в интервал [from, to),
+     * в порядке приоритета
+     *
+     * @param from начало интервала
+     * @param to   конец интервала (не включается)
+     * @return список задач
+     */
+    List<Task> getPrioritizedTasksBetween(LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Возвращает страницу списка приоритетов, следующую за задачей afterId
+     *
+     * @param afterId id последней задачи предыдущей страницы или 0 для первой страницы
+     * @param limit   наибольшее количество задач на странице
+     * @return список задач; пустой список, если задачи afterId нет
+     */
+    List<Task> getPrioritizedTasksAfter(int afterId, int limit);
+
     void deleteTasks();
 
     void deleteEpics();
@@ -27,25 +105,97 @@ public interface TaskManager {
 
     Subtask getSubtask(int id);
 
+    /**
+     * Возвращает задачу, эпик или подзадачу по id, не добавляя ее в историю просмотров
+     *
+     * @param id идентификатор задачи любого типа
+     * @return задача или null, если задачи с таким id нет
+     */
+    Task getById(int id);
+
     int createTask(Task task);
 
     int createEpic(Epic epic);
 
     int createSubtask(Subtask subtask);
 
+    /**
+     * Создает задачи пакетом. Пересечения по времени проверяются для всего пакета сразу:
+     * из задач пакета, пересекающихся друг с другом, создается начинающаяся раньше
+     *
+     * @param tasks список новых задач
+     * @return id созданных задач в порядке списка; -1 для задач, которые не созданы
+     */
+    List<Integer> createTasks(List<Task> tasks);
+
+    /**
+     * Создает подзадачи пакетом. Статус и время каждого затронутого эпика пересчитываются один раз
+     *
+     * @param subtasks список новых подзадач
+     * @return id созданных подзадач в порядке списка; -1 для подзадач, которые не созданы
+     */
+    List<Integer> createSubtasks(List<Subtask> subtasks);
+
     int updateTask(Task task);
 
     int updateEpic(Epic epic);
 
     int updateSubtask(Subtask subtask);
 
+    List<Integer> updateTasks(List<Task> tasks);
+
+    /**
+     * Обновляет подзадачи пакетом. Статус и время каждого затронутого эпика пересчитываются один раз
+     *
+     * @param subtasks список подзадач
+     * @return id обновленных подзадач в порядке списка
+     */
+    List<Integer> updateSubtasks(List<Subtask> subtasks);
+
     void deleteTask(int taskId);
 
     void deleteEpic(int epicId);
 
     void deleteSubtask(int subtaskId);
 
+    /**
+     * Удаляет задачи, эпики и подзадачи по списку id. Несуществующие id пропускаются
+     *
+     * @param ids список id задач любого типа
+     */
+    void deleteByIds(List<Integer> ids);
+
     List<Subtask> getSubtasksFromEpic(int epicId);
 
     List<Task> getHistory();
+
+    /**
+     * Возвращает страницу истории просмотров без копирования всей истории
+     *
+     * @param offset сколько задач пропустить от начала истории
+     * @param limit  наибольшее количество задач на странице
+     * @return неизменяемый список задач в порядке просмотра
+     */
+    List<Task> getHistory(int offset, int limit);
+
+    /**
+     * @param count наибольшее количество задач
+     * @return неизменяемый список последних просмотренных задач в порядке просмотра
+     */
+    List<Task> getRecentHistory(int count);
+
+    /**
+     * Подписывает на создание, изменение и удаление задач. События доставляются асинхронно,
+     * в отдельном потоке, в порядке возрастания версии
+     *
+     * @param listener подписчик
+     */
+    void subscribe(TaskEventListener listener);
+
+    void unsubscribe(TaskEventListener listener);
+
+    /**
+     * Останавливает фоновые потоки менеджера. Недоставленные события подписчикам не доставляются
+     */
+    void close();
 }
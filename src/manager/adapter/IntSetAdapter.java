@@ -0,0 +1,30 @@
+package manager.adapter;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import util.IntSet;
+
+import java.io.IOException;
+
+public class IntSetAdapter extends TypeAdapter<IntSet> {
+    @Override
+    public void write(final JsonWriter jsonWriter, final IntSet intSet) throws IOException {
+        jsonWriter.beginArray();
+        for (int value : intSet.toArray()) {
+            jsonWriter.value(value);
+        }
+        jsonWriter.endArray();
+    }
+
+    @Override
+    public IntSet read(final JsonReader jsonReader) throws IOException {
+        IntSet intSet = new IntSet();
+        jsonReader.beginArray();
+        while (jsonReader.hasNext()) {
+            intSet.add(jsonReader.nextInt());
+        }
+        jsonReader.endArray();
+        return intSet;
+    }
+}
@@ -0,0 +1,183 @@
+package manager.event;
+
+import task.Task;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Доставка событий изменения задач подписчикам. События пишутся в кольцевой буфер фиксированного размера,
+ * а подписчиков вызывает отдельный поток-демон, поэтому запись в менеджер не ждет подписчиков: публикация
+ * стоит одной записи в массив и одной записи в volatile-счетчик. Публикация никогда не ждет: если подписчики
+ * отстали на весь буфер, событие отбрасывается и учитывается в {@link #getDroppedCount()}. Поэтому медленный
+ * подписчик не задерживает запись, а подписчик может сам обращаться к менеджеру. Пока подписчиков нет,
+ * события не создаются, а поток доставки не запускается. {@link #close()} останавливает поток доставки.
+ */
+public class EventDispatcher {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final int SPIN_TRIES = 100;
+
+    private final TaskEvent[] ring;
+
+    private final int mask;
+
+    private final List<TaskEventListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong published = new AtomicLong();    // номер последнего опубликованного события
+
+    private final AtomicLong delivered = new AtomicLong();    // номер последнего доставленного события
+
+    private final AtomicLong dropped = new AtomicLong();    // события, не поместившиеся в буфер
+
+    private volatile boolean consumerParked;
+
+    private volatile boolean closed;
+
+    private volatile Thread consumer;
+
+    public EventDispatcher() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity размер кольцевого буфера; округляется вверх до степени двойки
+     */
+    public EventDispatcher(int capacity) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        ring = new TaskEvent[size];
+        mask = size - 1;
+    }
+
+    public void subscribe(TaskEventListener listener) {
+        startConsumer();
+        listeners.add(listener);
+    }
+
+    public void unsubscribe(TaskEventListener listener) {
+        listeners.remove(listener);
+    }
+
+    public boolean hasListeners() {
+        return !closed && !listeners.isEmpty();
+    }
+
+    /**
+     * @return версия последнего опубликованного события
+     */
+    public long getVersion() {
+        return published.get();
+    }
+
+    /**
+     * @return сколько событий отброшено из-за переполненного буфера за все время
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Публикует событие. Версия события — следующий номер в последовательности публикаций.
+     * Если буфер заполнен, событие отбрасывается без ожидания
+     *
+     * @param type   тип изменения
+     * @param before задача до изменения или null
+     * @param after  задача после изменения или null
+     */
+    public synchronized void publish(TaskEventType type, Task before, Task after) {
+        if (!hasListeners()) {
+            return;
+        }
+        long version = published.get() + 1;
+        if (version - delivered.get() > ring.length) {
+            dropped.incrementAndGet();
+            wakeConsumer();
+            return;
+        }
+        ring[(int) (version & mask)] = new TaskEvent(type, version, before, after);
+        published.set(version);
+        if (consumerParked) {
+            wakeConsumer();
+        }
+    }
+
+    /**
+     * Ждет, пока подписчики получат все события, опубликованные до вызова
+     */
+    public void awaitDelivery() {
+        long version = published.get();
+        while (delivered.get() < version && consumer != null && !closed) {
+            wakeConsumer();
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    /**
+     * Останавливает поток доставки. Недоставленные события отбрасываются, новые не публикуются
+     */
+    public void close() {
+        closed = true;
+        Thread thread;
+        synchronized (this) {
+            thread = consumer;
+            consumer = null;
+        }
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private synchronized void startConsumer() {
+        if (consumer != null || closed) {
+            return;
+        }
+        Thread thread = new Thread(this::consume, "task-events");
+        thread.setDaemon(true);
+        consumer = thread;
+        thread.start();
+    }
+
+    private void wakeConsumer() {
+        Thread thread = consumer;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void consume() {
+        int idle = 0;
+        while (!closed) {
+            long next = delivered.get() + 1;
+            if (next > published.get()) {
+                if (++idle < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                consumerParked = true;
+                if (next > published.get() && !closed) {
+                    LockSupport.park(this);
+                }
+                consumerParked = false;
+                continue;
+            }
+            idle = 0;
+            int slot = (int) (next & mask);
+            TaskEvent event = ring[slot];
+            ring[slot] = null;
+            for (TaskEventListener listener : listeners) {
+                try {
+                    listener.onEvent(event);
+                } catch (Throwable e) {
+                    System.out.println("Ошибка подписчика " + listener + ": " + e);
+                }
+            }
+            delivered.set(next);
+        }
+    }
+}
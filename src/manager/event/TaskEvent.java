@@ -0,0 +1,56 @@
+package manager.event;
+
+import task.Task;
+
+/**
+ * Изменение задачи, эпика или подзадачи. Версия события строго возрастает в пределах менеджера.
+ * before и after — объекты задачи до и после изменения: before равен null для CREATED, after — для DELETED.
+ * Если задача была изменена на месте и передана в update, before и after — один и тот же объект.
+ * Статус и время эпика, пересчитанные по подзадачам, отдельными событиями не публикуются.
+ */
+public final class TaskEvent {
+
+    private final TaskEventType type;
+
+    private final long version;
+
+    private final Task before;
+
+    private final Task after;
+
+    public TaskEvent(TaskEventType type, long version, Task before, Task after) {
+        this.type = type;
+        this.version = version;
+        this.before = before;
+        this.after = after;
+    }
+
+    public TaskEventType getType() {
+        return type;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Task getBefore() {
+        return before;
+    }
+
+    public Task getAfter() {
+        return after;
+    }
+
+    public int getId() {
+        return after != null ? after.getId() : before.getId();
+    }
+
+    @Override
+    public String toString() {
+        return "TaskEvent{" +
+                "type=" + type +
+                ", version=" + version +
+                ", id=" + getId() +
+                '}';
+    }
+}
@@ -0,0 +1,9 @@
+package manager.event;
+
+/**
+ * Подписчик на изменения задач. События доставляются в отдельном потоке в порядке версий
+ */
+public interface TaskEventListener {
+
+    void onEvent(TaskEvent event);
+}
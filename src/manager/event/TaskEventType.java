@@ -0,0 +1,5 @@
+package manager.event;
+
+public enum TaskEventType {
+    CREATED, UPDATED, DELETED;
+}
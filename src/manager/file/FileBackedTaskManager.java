@@ -1,8 +1,10 @@
 package manager.file;
 
 import manager.HistoryManager;
+import manager.Managers;
 import manager.exception.ManagerLoadException;
 import manager.exception.ManagerSaveException;
+import manager.id.IdGenerator;
 import manager.memory.InMemoryTaskManager;
 import task.*;
 
@@ -11,16 +13,47 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class FileBackedTaskManager extends InMemoryTaskManager {
 
+    /**
+     * Сколько просмотров можно дописать в журнал, прежде чем он будет свернут полным сохранением
+     */
+    protected static final int HISTORY_LOG_LIMIT = 1000;
+
+    /**
+     * Просмотров в журнале после последнего сохранения истории целиком. Просмотры могут записываться
+     * из нескольких потоков, поэтому счетчик атомарный
+     */
+    protected final AtomicInteger loggedViews = new AtomicInteger();
+
     private final File file;
 
+    private final File historyFile;
+
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy; HH:mm");
 
     public FileBackedTaskManager(File file) {
         this.file = file;
+        this.historyFile = file == null ? null : historyFileOf(file);
+    }
+
+    public FileBackedTaskManager(File file, IdGenerator idGenerator) {
+        super(Managers.getDefaultHistory(), idGenerator);
+        this.file = file;
+        this.historyFile = file == null ? null : historyFileOf(file);
+    }
+
+    /**
+     * История хранится рядом с файлом задач, в файле с суффиксом ".history": первая строка — id задач
+     * истории на момент последнего сворачивания журнала, дальше по одному id на строку — журнал просмотров
+     *
+     * @param file файл задач
+     * @return файл истории
+     */
+    public static File historyFileOf(File file) {
+        return new File(file.getPath() + ".history");
     }
 
     @Override
@@ -62,6 +95,20 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         return id;
     }
 
+    @Override
+    public List<Integer> createTasks(List<Task> tasks) {
+        List<Integer> ids = super.createTasks(tasks);
+        save();
+        return ids;
+    }
+
+    @Override
+    public List<Integer> createSubtasks(List<Subtask> subtasks) {
+        List<Integer> ids = super.createSubtasks(subtasks);
+        save();
+        return ids;
+    }
+
     @Override
     public int updateTask(Task task) {
         int id = super.updateTask(task);
@@ -83,6 +130,20 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         return id;
     }
 
+    @Override
+    public List<Integer> updateTasks(List<Task> tasks) {
+        List<Integer> ids = super.updateTasks(tasks);
+        save();
+        return ids;
+    }
+
+    @Override
+    public List<Integer> updateSubtasks(List<Subtask> subtasks) {
+        List<Integer> ids = super.updateSubtasks(subtasks);
+        save();
+        return ids;
+    }
+
     @Override
     public void deleteTask(int taskId) {
         super.deleteTask(taskId);
@@ -102,11 +163,36 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     }
 
     @Override
-    public List<Task> getHistory() {
+    public void deleteByIds(List<Integer> ids) {
+        super.deleteByIds(ids);
         save();
-        return super.getHistory();
     }
 
+    @Override
+    public Task getTask(int id) {
+        Task task = super.getTask(id);
+        recordView(task);
+        return task;
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        Epic epic = super.getEpic(id);
+        recordView(epic);
+        return epic;
+    }
+
+    @Override
+    public Subtask getSubtask(int id) {
+        Subtask subtask = super.getSubtask(id);
+        recordView(subtask);
+        return subtask;
+    }
+
+    /**
+     * Сохраняет задачи. История хранится в отдельном файле и при изменении задач не переписывается:
+     * id удаленных задач остаются в истории на диске и пропускаются при загрузке
+     */
     protected void save() {
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
 
@@ -122,12 +208,46 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
             }
 
             writer.write("\n");
-            writer.write(historyToString(getHistoryManager()));
         } catch (IOException exception) {
             throw new ManagerSaveException("Ошибка при сохранении файла");
         }
     }
 
+    /**
+     * Сохраняет историю целиком и сворачивает журнал просмотров
+     */
+    protected void saveHistory() {
+        loggedViews.set(0);
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(historyFile))) {
+            writer.write(historyToString(getHistoryManager()));
+        } catch (IOException exception) {
+            throw new ManagerSaveException("Ошибка при сохранении истории");
+        }
+    }
+
+    /**
+     * Дописывает просмотр отдельной строкой в журнал файла истории. Когда журнал дорастает до
+     * {@link #HISTORY_LOG_LIMIT} записей, история сохраняется целиком и журнал сворачивается
+     *
+     * @param id id просмотренной задачи
+     */
+    protected void appendView(int id) {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(historyFile, true))) {
+            writer.write("\n" + id);
+        } catch (IOException exception) {
+            throw new ManagerSaveException("Ошибка при сохранении истории");
+        }
+        if (loggedViews.incrementAndGet() >= HISTORY_LOG_LIMIT) {
+            saveHistory();
+        }
+    }
+
+    private void recordView(Task task) {
+        if (task != null) {
+            appendView(task.getId());
+        }
+    }
+
     /**
      * Преобразует задачу в строковое описание
      *
@@ -136,7 +256,7 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
      */
     private static String toString(Task task) {
         StringBuilder result = new StringBuilder(String.format("%s,%s,%s,%s,%s", task.getId(),
-                task.getClass().getSimpleName().toUpperCase(), task.getName(), task.getStatus(), task.getDescription()));
+                task.getType(), task.getName(), task.getStatus(), task.getDescription()));
 
         if (task instanceof Subtask) {
             Subtask subtask = (Subtask) task;
@@ -221,7 +341,7 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
      */
     private static List<Integer> historyFromString(String value) {
         List<Integer> history = new ArrayList<>();
-        if (value == null) {
+        if (value == null || value.isBlank()) {
             return history;
         }
         String[] historyId = value.split(",");
@@ -231,43 +351,30 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         return history;
     }
 
-    private void addTask(Task task) {
-        if (uid < task.getId()) {
-            uid = task.getId();
-        }
-        final int taskId = task.getId();
-        task.setId(taskId);
-        tasks.put(taskId, task);
-        prioritizedTasks.put(task, task.getStartTime());
-    }
-
-    private void addEpic(Epic epic) {
-        if (uid < epic.getId()) {
-            uid = epic.getId();
-        }
-        final int epicId = epic.getId();
-        epic.setId(epicId);
-        epics.put(epicId, epic);
-        prioritizedTasks.put(epic, epic.getStartTime());
-    }
-
-    private void addSubtask(Subtask subtask) {
-        Epic epic = epics.get(subtask.getEpicId());
-        if (epic == null) {
-            System.out.println("epic == null");
-            return;
+    /**
+     * Добавляет в историю строку истории и следующие за ней строки журнала. Удаленные задачи пропускаются
+     *
+     * @param reader   источник, стоящий на строке истории
+     * @param countLog учитывать ли строки журнала в счетчике просмотров
+     * @return true, если в источнике была хотя бы одна запись истории
+     */
+    private boolean replayHistory(BufferedReader reader, boolean countLog) throws IOException {
+        String line = reader.readLine();
+        boolean found = false;
+        for (Integer id : historyFromString(line)) {
+            getHistoryManager().add(getById(id));
+            found = true;
         }
-
-        if (uid < subtask.getId()) {
-            uid = subtask.getId();
+        while ((line = reader.readLine()) != null) {
+            if (!line.isBlank()) {
+                getHistoryManager().add(getById(Integer.parseInt(line)));
+                found = true;
+                if (countLog) {
+                    loggedViews.incrementAndGet();
+                }
+            }
         }
-        final int subtaskId = subtask.getId();
-        subtask.setId(subtaskId);
-        subtasks.put(subtaskId, subtask);
-        prioritizedTasks.put(subtask, subtask.getStartTime());
-        epic.addSubtaskId(subtaskId);
-        updateEpicStatus(epic);
-        updateEpicTime(epic);
+        return found;
     }
 
     /**
@@ -284,50 +391,28 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
             if (line == null) {
                 return taskManager;
             }
+            List<Task> records = new ArrayList<>();
             while (!line.isBlank()) {
                 if (line.startsWith("id")) {
                     line = reader.readLine();
                     continue;
                 }
-                String[] values = line.split(",");
-                TaskType taskType = TaskType.valueOf(values[1]);
-                switch (taskType) {
-                    case TASK:
-                        Task task = taskManager.fromString(line);
-                        taskManager.addTask(task);
-                        break;
-                    case EPIC:
-                        Epic epic = (Epic) taskManager.fromString(line);
-                        taskManager.addEpic(epic);
-                        break;
-                    case SUBTASK:
-                        Subtask subtask = (Subtask) taskManager.fromString(line);
-                        taskManager.addSubtask(subtask);
-                        break;
-                }
+                records.add(taskManager.fromString(line));
                 line = reader.readLine();
             }
+            taskManager.restore(records);
 
-            line = reader.readLine();
-            List<Integer> history = historyFromString(line);
-
-            for (Integer id : history) {
-                for (Task task : taskManager.getTasks()) {
-                    if (Objects.equals(task.getId(), id)) {
-                        taskManager.getHistoryManager().add(task);
-                    }
-                }
-                for (Epic epic : taskManager.getEpics()) {
-                    if (Objects.equals(epic.getId(), id)) {
-                        taskManager.getHistoryManager().add(epic);
-                    }
-                }
-                for (Subtask subtask : taskManager.getSubtasks()) {
-                    if (Objects.equals(subtask.getId(), id)) {
-                        taskManager.getHistoryManager().add(subtask);
-                    }
+            // файлы прежнего формата хранят историю и журнал после задач; они переносятся в файл истории
+            boolean legacyHistory = taskManager.replayHistory(reader, false);
+            if (taskManager.historyFile.exists()) {
+                try (BufferedReader historyReader = new BufferedReader(new FileReader(taskManager.historyFile))) {
+                    taskManager.replayHistory(historyReader, true);
                 }
             }
+            if (legacyHistory) {
+                taskManager.saveHistory();
+                taskManager.save();
+            }
         } catch (IOException exception) {
             throw new ManagerLoadException("Ошибка при чтении файла");
         }
@@ -0,0 +1,21 @@
+package manager.id;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Генератор id одного экземпляра менеджера: счетчик изменяется атомарно, без блокировок
+ */
+public class AtomicIdGenerator implements IdGenerator {
+
+    private final AtomicInteger lastId = new AtomicInteger();
+
+    @Override
+    public int nextId() {
+        return lastId.incrementAndGet();
+    }
+
+    @Override
+    public void advanceTo(int id) {
+        lastId.accumulateAndGet(id, Math::max);
+    }
+}
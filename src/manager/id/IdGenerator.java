@@ -0,0 +1,20 @@
+package manager.id;
+
+/**
+ * Источник id для новых задач, эпиков и подзадач
+ */
+public interface IdGenerator {
+
+    /**
+     * @return новый id, больший всех выданных ранее
+     */
+    int nextId();
+
+    /**
+     * Сдвигает генератор так, чтобы следующие id были больше id. Вызывается при восстановлении задач
+     * с уже назначенными id
+     *
+     * @param id занятый id
+     */
+    void advanceTo(int id);
+}
@@ -0,0 +1,43 @@
+package manager.id;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Генератор id одной полосы из stripes: выдает id, дающие при делении на stripes остаток stripe + 1
+ * (для последней полосы — 0). Генераторы разных полос не пересекаются и не обращаются к общему счетчику,
+ * а по id сразу видно, какая полоса его выдала: {@link #stripeOf(int, int)}
+ */
+public class StripedIdGenerator implements IdGenerator {
+
+    private final int stripes;
+
+    private final AtomicInteger lastId;
+
+    public StripedIdGenerator(int stripe, int stripes) {
+        if (stripes <= 0 || stripe < 0 || stripe >= stripes) {
+            throw new IllegalArgumentException("Неверный номер полосы " + stripe + " из " + stripes);
+        }
+        this.stripes = stripes;
+        this.lastId = new AtomicInteger(stripe + 1 - stripes);
+    }
+
+    /**
+     * @param id      id задачи
+     * @param stripes количество полос
+     * @return номер полосы, выдавшей id
+     */
+    public static int stripeOf(int id, int stripes) {
+        return Math.floorMod(id - 1, stripes);
+    }
+
+    @Override
+    public int nextId() {
+        return lastId.addAndGet(stripes);
+    }
+
+    @Override
+    public void advanceTo(int id) {
+        lastId.accumulateAndGet(id, (last, busy) -> last >= busy ? last
+                : last + (busy - last) / stripes * stripes);
+    }
+}
@@ -0,0 +1,366 @@
+package manager.memory;
+
+import manager.HistoryManager;
+import manager.Managers;
+import manager.event.EventDispatcher;
+import manager.event.TaskEvent;
+import manager.event.TaskEventType;
+import manager.id.IdGenerator;
+import manager.memory.history.AsyncHistoryManager;
+import manager.memory.history.ConcurrentHistoryManager;
+import manager.memory.index.TextIndex;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+import task.TaskType;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * Потокобезопасный менеджер задач. Все изменения выполняются последовательно под блокировкой записи,
+ * поэтому инварианты эпиков (статус, время, индексы подзадач) всегда согласованы.
+ * Списки задач читаются из опубликованного снимка без блокировок; если снимок сброшен записью,
+ * список строится заново под блокировкой чтения. Подзадачи эпика читаются оптимистично; если во время
+ * чтения произошла запись, чтение повторяется под блокировкой чтения. Получение задачи по id пишет
+ * в историю и поэтому всегда выполняется под блокировкой чтения, чтобы не конкурировать с удалением задачи.
+ * События изменений публикуются после освобождения блокировки записи.
+ */
+public class ConcurrentTaskManager extends InMemoryTaskManager {
+
+    private final StampedLock lock = new StampedLock();
+
+    // события, накопленные под блокировкой записи; публикуются после ее освобождения в порядке изменений
+    private final Queue<TaskEvent> pendingEvents = new ConcurrentLinkedQueue<>();
+
+    public ConcurrentTaskManager() {
+        this(Managers.getDefaultHistory());
+    }
+
+    /**
+     * @param historyManager менеджер истории; если он не потокобезопасен, он оборачивается
+     *                       в {@link ConcurrentHistoryManager}
+     */
+    public ConcurrentTaskManager(HistoryManager historyManager) {
+        super(threadSafe(historyManager));
+    }
+
+    public ConcurrentTaskManager(HistoryManager historyManager, IdGenerator idGenerator) {
+        super(threadSafe(historyManager), idGenerator);
+    }
+
+    public ConcurrentTaskManager(HistoryManager historyManager, IdGenerator idGenerator, EventDispatcher events) {
+        super(threadSafe(historyManager), idGenerator, events);
+    }
+
+    /**
+     * Получение задачи по id пишет в историю под общей блокировкой чтения, то есть из нескольких потоков
+     * сразу, поэтому история должна быть потокобезопасной
+     *
+     * @param historyManager менеджер истории
+     * @return тот же менеджер, если он потокобезопасен, иначе он же в {@link ConcurrentHistoryManager}
+     */
+    private static HistoryManager threadSafe(HistoryManager historyManager) {
+        if (historyManager instanceof ConcurrentHistoryManager || historyManager instanceof AsyncHistoryManager) {
+            return historyManager;
+        }
+        return new ConcurrentHistoryManager(historyManager);
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        List<Task> published = getSnapshot().getTasks();
+        return published != null ? published : read(super::getTasks);
+    }
+
+    @Override
+    public List<Epic> getEpics() {
+        List<Epic> published = getSnapshot().getEpics();
+        return published != null ? published : read(super::getEpics);
+    }
+
+    @Override
+    public List<Subtask> getSubtasks() {
+        List<Subtask> published = getSnapshot().getSubtasks();
+        return published != null ? published : read(super::getSubtasks);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        List<Task> published = getSnapshot().getPrioritizedTasks();
+        return published != null ? published : read(super::getPrioritizedTasks);
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(TaskStatus status) {
+        return read(() -> super.getTasksByStatus(status));
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(TaskType type, TaskStatus status) {
+        return read(() -> super.getTasksByStatus(type, status));
+    }
+
+    @Override
+    public int getStatusCount(TaskType type, TaskStatus status) {
+        return read(() -> super.getStatusCount(type, status));
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        return read(() -> super.search(query, limit));
+    }
+
+    @Override
+    public LocalDateTime findFreeSlot(Duration duration, LocalDateTime from, LocalDateTime to) {
+        return read(() -> super.findFreeSlot(duration, from, to));
+    }
+
+    @Override
+    public double getUtilization(LocalDateTime from, LocalDateTime to) {
+        return read(() -> super.getUtilization(from, to));
+    }
+
+    @Override
+    public Map<LocalDate, int[]> getOccupancyHeatmap(LocalDate from, LocalDate to) {
+        return read(() -> super.getOccupancyHeatmap(from, to));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return read(() -> super.getPrioritizedTasksBetween(from, to));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksAfter(int afterId, int limit) {
+        return read(() -> super.getPrioritizedTasksAfter(afterId, limit));
+    }
+
+    @Override
+    protected List<Task> getPrioritizedTasksAfter(Task after, int limit) {
+        return read(() -> super.getPrioritizedTasksAfter(after, limit));
+    }
+
+    @Override
+    protected List<TextIndex.Match> searchRanked(String query, int limit) {
+        return read(() -> super.searchRanked(query, limit));
+    }
+
+    @Override
+    protected NavigableMap<LocalDate, long[]> getBusySlots(LocalDate from, LocalDate to) {
+        return read(() -> super.getBusySlots(from, to));
+    }
+
+    @Override
+    protected void attachSubtask(Subtask subtask) {
+        write(() -> super.attachSubtask(subtask));
+    }
+
+    @Override
+    protected Subtask detachSubtask(int subtaskId) {
+        return write(() -> super.detachSubtask(subtaskId));
+    }
+
+    @Override
+    protected boolean hasOverlapping(Task task) {
+        return read(() -> super.hasOverlapping(task));
+    }
+
+    @Override
+    public List<Subtask> getSubtasksFromEpic(int epicId) {
+        return readOptimistic(() -> super.getSubtasksFromEpic(epicId));
+    }
+
+    @Override
+    public Task getTask(int id) {
+        return read(() -> super.getTask(id));
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        return read(() -> super.getEpic(id));
+    }
+
+    @Override
+    public Subtask getSubtask(int id) {
+        return read(() -> super.getSubtask(id));
+    }
+
+    @Override
+    public Task getById(int id) {
+        return read(() -> super.getById(id));
+    }
+
+    @Override
+    public void deleteTasks() {
+        write(super::deleteTasks);
+    }
+
+    @Override
+    public void deleteEpics() {
+        write(super::deleteEpics);
+    }
+
+    @Override
+    public void deleteSubtasks() {
+        write(super::deleteSubtasks);
+    }
+
+    @Override
+    public int createTask(Task task) {
+        return write(() -> super.createTask(task));
+    }
+
+    @Override
+    public int createEpic(Epic epic) {
+        return write(() -> super.createEpic(epic));
+    }
+
+    @Override
+    public int createSubtask(Subtask subtask) {
+        return write(() -> super.createSubtask(subtask));
+    }
+
+    @Override
+    public List<Integer> createTasks(List<Task> tasks) {
+        return write(() -> super.createTasks(tasks));
+    }
+
+    @Override
+    public List<Integer> createSubtasks(List<Subtask> subtasks) {
+        return write(() -> super.createSubtasks(subtasks));
+    }
+
+    @Override
+    public int updateTask(Task task) {
+        return write(() -> super.updateTask(task));
+    }
+
+    @Override
+    public int updateEpic(Epic epic) {
+        return write(() -> super.updateEpic(epic));
+    }
+
+    @Override
+    public int updateSubtask(Subtask subtask) {
+        return write(() -> super.updateSubtask(subtask));
+    }
+
+    @Override
+    public List<Integer> updateTasks(List<Task> tasks) {
+        return write(() -> super.updateTasks(tasks));
+    }
+
+    @Override
+    public List<Integer> updateSubtasks(List<Subtask> subtasks) {
+        return write(() -> super.updateSubtasks(subtasks));
+    }
+
+    @Override
+    public void deleteTask(int taskId) {
+        write(() -> super.deleteTask(taskId));
+    }
+
+    @Override
+    public void deleteEpic(int epicId) {
+        write(() -> super.deleteEpic(epicId));
+    }
+
+    @Override
+    public void deleteSubtask(int subtaskId) {
+        write(() -> super.deleteSubtask(subtaskId));
+    }
+
+    @Override
+    public void deleteByIds(List<Integer> ids) {
+        write(() -> super.deleteByIds(ids));
+    }
+
+    /**
+     * Откладывает событие до освобождения блокировки записи, чтобы подписчики и переполненный буфер
+     * событий не задерживали других писателей
+     */
+    @Override
+    protected void publishEvent(TaskEventType type, Task before, Task after) {
+        if (events.hasListeners()) {
+            pendingEvents.add(new TaskEvent(type, 0, before, after));
+        }
+    }
+
+    /**
+     * Публикует накопленные события. Вызывается после освобождения блокировки записи; события разных
+     * писателей публикуются под одним монитором в порядке изменений
+     */
+    private void publishPending() {
+        if (pendingEvents.isEmpty()) {
+            return;
+        }
+        synchronized (pendingEvents) {
+            TaskEvent event;
+            while ((event = pendingEvents.poll()) != null) {
+                events.publish(event.getType(), event.getBefore(), event.getAfter());
+            }
+        }
+    }
+
+    /**
+     * Выполняет чтение без блокировки и проверяет, что за это время не было записи.
+     * Структуры менеджера могли меняться во время чтения, поэтому исключение при оптимистичном
+     * чтении означает то же, что и неудачная проверка, — чтение повторяется под блокировкой
+     *
+     * @param reader операция чтения
+     * @return результат чтения
+     */
+    private <T> T readOptimistic(Supplier<T> reader) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T result = reader.get();
+                if (lock.validate(stamp)) {
+                    return result;
+                }
+            } catch (RuntimeException ignored) {
+                // чтение пересеклось с записью
+            }
+        }
+        return read(reader);
+    }
+
+    private <T> T read(Supplier<T> reader) {
+        long stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private <T> T write(Supplier<T> writer) {
+        long stamp = lock.writeLock();
+        try {
+            return writer.get();
+        } finally {
+            lock.unlockWrite(stamp);
+            publishPending();
+        }
+    }
+
+    private void write(Runnable writer) {
+        long stamp = lock.writeLock();
+        try {
+            writer.run();
+        } finally {
+            lock.unlockWrite(stamp);
+            publishPending();
+        }
+    }
+}
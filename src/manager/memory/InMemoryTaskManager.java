@@ -3,70 +3,336 @@ package manager.memory;
 import manager.HistoryManager;
 import manager.Managers;
 import manager.TaskManager;
+import manager.event.EventDispatcher;
+import manager.event.TaskEventListener;
+import manager.event.TaskEventType;
+import manager.id.AtomicIdGenerator;
+import manager.id.IdGenerator;
+import manager.memory.index.EpicTimeline;
+import manager.memory.index.GapIndex;
+import manager.memory.index.IntervalTree;
+import manager.memory.index.OccupancyIndex;
+import manager.memory.index.PrioritizedIndex;
+import manager.memory.index.StatusIndex;
+import manager.memory.index.TextIndex;
 import task.Epic;
 import task.Subtask;
 import task.Task;
 import task.TaskStatus;
+import task.TaskType;
+import util.IntObjectMap;
 
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
 
 public class InMemoryTaskManager implements TaskManager {
-    protected final HashMap<Integer, Task> tasks = new HashMap<>();
-    protected final HashMap<Integer, Epic> epics = new HashMap<>();
-    protected final HashMap<Integer, Subtask> subtasks = new HashMap<>();
+    private static final int PARALLEL_RESTORE_EPICS = 64;    // с какого количества эпиков пересчет идет параллельно
 
-    private final Comparator<Task> taskComparator = Comparator.comparing(Task::getStartTime,
-            Comparator.nullsLast(Comparator.naturalOrder())).thenComparing(Task::getId);
+    protected final IntObjectMap<Task> registry = new IntObjectMap<>();    // все задачи, эпики и подзадачи по id
+    protected final IntObjectMap<Task> tasks = new IntObjectMap<>();
+    protected final IntObjectMap<Epic> epics = new IntObjectMap<>();
+    protected final IntObjectMap<Subtask> subtasks = new IntObjectMap<>();
+    protected final IntObjectMap<IntObjectMap<Subtask>> subtasksByEpic = new IntObjectMap<>();
+    protected final IntObjectMap<EpicTimeline> epicTimelines = new IntObjectMap<>();
+    // статус, под которым подзадача учтена в счетчиках своего эпика: объект подзадачи могут изменить
+    // до вызова обновления, поэтому при снятии со счетчиков берется сохраненный статус, а не текущий
+    private final IntObjectMap<TaskStatus> countedStatuses = new IntObjectMap<>();
 
-    protected final Map<Task, LocalDateTime> prioritizedTasks = new TreeMap<>(taskComparator);
+    protected final PrioritizedIndex prioritizedTasks = new PrioritizedIndex();
 
-    protected int uid = 0;
+    protected final IntervalTree taskSchedule = new IntervalTree();
+    protected final IntervalTree subtaskSchedule = new IntervalTree();
+    protected final GapIndex freeTime = new GapIndex(taskSchedule, subtaskSchedule);
+    protected final OccupancyIndex occupancy = new OccupancyIndex();
 
-    protected final HistoryManager historyManager = Managers.getDefaultHistory();
+    protected final StatusIndex statusIndex = new StatusIndex();
+
+    protected final TextIndex textIndex = new TextIndex();
+
+    protected final EventDispatcher events;
+
+    private final AtomicReference<TaskSnapshot> snapshot = new AtomicReference<>(new TaskSnapshot(0));
+
+    protected final IdGenerator idGenerator;
+
+    protected final HistoryManager historyManager;
+
+    public InMemoryTaskManager() {
+        this(Managers.getDefaultHistory());
+    }
+
+    public InMemoryTaskManager(HistoryManager historyManager) {
+        this(historyManager, new AtomicIdGenerator());
+    }
+
+    public InMemoryTaskManager(HistoryManager historyManager, IdGenerator idGenerator) {
+        this(historyManager, idGenerator, new EventDispatcher());
+    }
+
+    /**
+     * @param historyManager менеджер истории просмотров
+     * @param idGenerator    источник id новых задач
+     * @param events         диспетчер событий; один диспетчер может обслуживать несколько менеджеров
+     */
+    public InMemoryTaskManager(HistoryManager historyManager, IdGenerator idGenerator, EventDispatcher events) {
+        this.historyManager = historyManager;
+        this.idGenerator = idGenerator;
+        this.events = events;
+    }
 
     @Override
     public List<Task> getTasks() {
-        return new ArrayList<>(tasks.values());
+        TaskSnapshot current = snapshot.get();
+        if (current.getTasks() != null) {
+            return current.getTasks();
+        }
+        List<Task> published = Collections.unmodifiableList(new ArrayList<>(tasks.values()));
+        publish(current, s -> s.withTasks(published));
+        return published;
     }
 
     @Override
     public List<Epic> getEpics() {
-        return new ArrayList<>(epics.values());
+        TaskSnapshot current = snapshot.get();
+        if (current.getEpics() != null) {
+            return current.getEpics();
+        }
+        List<Epic> published = Collections.unmodifiableList(new ArrayList<>(epics.values()));
+        publish(current, s -> s.withEpics(published));
+        return published;
     }
 
     @Override
     public List<Subtask> getSubtasks() {
-        return new ArrayList<>(subtasks.values());
+        TaskSnapshot current = snapshot.get();
+        if (current.getSubtasks() != null) {
+            return current.getSubtasks();
+        }
+        List<Subtask> published = Collections.unmodifiableList(new ArrayList<>(subtasks.values()));
+        publish(current, s -> s.withSubtasks(published));
+        return published;
     }
 
     public List<Task> getPrioritizedTasks() {
-        return new ArrayList<>(prioritizedTasks.keySet());
+        TaskSnapshot current = snapshot.get();
+        if (current.getPrioritizedTasks() != null) {
+            return current.getPrioritizedTasks();
+        }
+        List<Task> prioritized = new ArrayList<>(prioritizedTasks.size());
+        for (Task task : prioritizedTasks) {
+            prioritized.add(task);
+        }
+        List<Task> published = Collections.unmodifiableList(prioritized);
+        publish(current, s -> s.withPrioritizedTasks(published));
+        return published;
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(TaskStatus status) {
+        List<Task> result = new ArrayList<>();
+        for (TaskType type : TaskType.values()) {
+            result.addAll(statusIndex.get(type, status));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(TaskType type, TaskStatus status) {
+        return statusIndex.get(type, status);
+    }
+
+    @Override
+    public int getStatusCount(TaskType type, TaskStatus status) {
+        return statusIndex.count(type, status);
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        return textIndex.search(query, limit);
+    }
+
+    @Override
+    public LocalDateTime findFreeSlot(Duration duration, LocalDateTime from, LocalDateTime to) {
+        return freeTime.findFreeSlot(duration, from, to);
+    }
+
+    @Override
+    public double getUtilization(LocalDateTime from, LocalDateTime to) {
+        return occupancy.getUtilization(from, to);
+    }
+
+    @Override
+    public Map<LocalDate, int[]> getOccupancyHeatmap(LocalDate from, LocalDate to) {
+        return occupancy.getHeatmap(from, to);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return prioritizedTasks.between(from, to);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksAfter(int afterId, int limit) {
+        if (afterId == 0) {
+            return prioritizedTasks.after(null, limit);
+        }
+        Task after = registry.get(afterId);
+        if (after == null) {
+            return new ArrayList<>();
+        }
+        return prioritizedTasks.after(after, limit);
+    }
+
+    /**
+     * Возвращает страницу задач, следующих в порядке приоритета за задачей after. Задача after
+     * может принадлежать другому менеджеру — важны только ее время начала и id
+     *
+     * @param after задача, на которой закончилась предыдущая страница, или null для первой страницы
+     * @param limit наибольшее количество задач на странице
+     * @return список задач
+     */
+    protected List<Task> getPrioritizedTasksAfter(Task after, int limit) {
+        return prioritizedTasks.after(after, limit);
+    }
+
+    protected List<TextIndex.Match> searchRanked(String query, int limit) {
+        return textIndex.searchRanked(query, limit);
+    }
+
+    protected NavigableMap<LocalDate, long[]> getBusySlots(LocalDate from, LocalDate to) {
+        return occupancy.getBusySlots(from, to);
+    }
+
+    /**
+     * Добавляет подзадачу с уже назначенным id, перенесенную из другого менеджера. Статус и время эпика
+     * пересчитываются; событие не публикуется — перенос публикует тот, кто его выполняет
+     *
+     * @param subtask подзадача; ее эпик должен быть в этом менеджере
+     */
+    protected void attachSubtask(Subtask subtask) {
+        subtasks.put(subtask.getId(), subtask);
+        addToIndexes(subtask);
+        Epic epic = epics.get(subtask.getEpicId());
+        linkSubtask(epic, subtask);
+        refreshEpic(epic);
+    }
+
+    /**
+     * Убирает подзадачу, перенесенную в другой менеджер. История просмотров не меняется,
+     * событие не публикуется
+     *
+     * @param subtaskId id подзадачи
+     * @return убранная подзадача или null, если ее нет
+     */
+    protected Subtask detachSubtask(int subtaskId) {
+        Subtask subtask = subtasks.remove(subtaskId);
+        if (subtask == null) {
+            return null;
+        }
+        Epic epic = epics.get(subtask.getEpicId());
+        unlinkSubtask(epic, subtask);
+        removeFromIndexes(subtask);
+        refreshEpic(epic);
+        return subtask;
+    }
+
+    /**
+     * Проверяет, пересекается ли задача по времени с задачами и подзадачами менеджера
+     *
+     * @param task объект задачи
+     * @return true, если пересекается
+     */
+    protected boolean hasOverlapping(Task task) {
+        return overlapsSchedule(task);
+    }
+
+    /**
+     * Возвращает последний опубликованный снимок списков менеджера. Чтение снимка не требует блокировок,
+     * но задачи в его списках — те же объекты, что и в менеджере
+     *
+     * @return снимок списков
+     */
+    public TaskSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    @Override
+    public void subscribe(TaskEventListener listener) {
+        events.subscribe(listener);
+    }
+
+    @Override
+    public void unsubscribe(TaskEventListener listener) {
+        events.unsubscribe(listener);
+    }
+
+    @Override
+    public void close() {
+        events.close();
+        historyManager.close();
     }
 
     @Override
     public void deleteTasks() {
+        publishDeleted(tasks.values());
+        unregister(tasks.values());
+        taskSchedule.clear();
+        releaseTime(tasks.values());
         tasks.clear();
-        prioritizedTasks.keySet().removeIf(task -> task.getClass() == Task.class);
+        prioritizedTasks.clearTasks();
+        statusIndex.clear(TaskType.TASK);
+        changed(TaskType.TASK);
     }
 
     @Override
     public void deleteEpics() {
+        publishDeleted(subtasks.values());
+        publishDeleted(epics.values());
+        unregister(epics.values());
+        unregister(subtasks.values());
+        subtaskSchedule.clear();
+        releaseTime(subtasks.values());
         epics.clear();
         subtasks.clear();
-        prioritizedTasks.keySet().removeIf(task -> task.getClass() == Subtask.class);
-        prioritizedTasks.keySet().removeIf(task -> task.getClass() == Epic.class);
+        subtasksByEpic.clear();
+        epicTimelines.clear();
+        countedStatuses.clear();
+        prioritizedTasks.clearSubtasks();
+        prioritizedTasks.clearEpics();
+        statusIndex.clear(TaskType.SUBTASK);
+        statusIndex.clear(TaskType.EPIC);
+        changed(TaskType.SUBTASK);
+        changed(TaskType.EPIC);
     }
 
     @Override
     public void deleteSubtasks() {
+        publishDeleted(subtasks.values());
+        unregister(subtasks.values());
+        subtaskSchedule.clear();
+        releaseTime(subtasks.values());
         subtasks.clear();
-        for (Map.Entry<Integer, Epic> epic : epics.entrySet()) {
-            epic.getValue().clearSubtasksId();
-            epic.getValue().setStatus(TaskStatus.NEW);
+        prioritizedTasks.clearSubtasks();
+        statusIndex.clear(TaskType.SUBTASK);
+        changed(TaskType.SUBTASK);
+        countedStatuses.clear();
+        for (Epic epic : epics.values()) {
+            epic.clearSubtasksId();
+            epic.resetSubtaskStatusCounts();
+            refreshEpicStatus(epic);
+        }
+        for (IntObjectMap<Subtask> epicSubtasks : subtasksByEpic.values()) {
+            epicSubtasks.clear();
+        }
+        for (Epic epic : epics.values()) {
+            epicTimelines.get(epic.getId()).clear();
+            updateEpicTime(epic);
         }
-        prioritizedTasks.keySet().removeIf(task -> task.getClass() == Subtask.class);
     }
 
     @Override
@@ -76,6 +342,11 @@ public class InMemoryTaskManager implements TaskManager {
         return task;
     }
 
+    @Override
+    public Task getById(int id) {
+        return registry.get(id);
+    }
+
     @Override
     public Epic getEpic(int id) {
         Epic epic = epics.get(id);
@@ -95,22 +366,18 @@ public class InMemoryTaskManager implements TaskManager {
         if (isCrossOverInTime(newTask)) {
             return -1;
         }
-
-        int taskId = ++uid;
-        newTask.setId(taskId);
-        tasks.put(taskId, newTask);
-
-        prioritizedTasks.put(newTask, newTask.getStartTime());
-        return taskId;
+        return insertTask(newTask);
     }
 
     @Override
     public int createEpic(Epic newEpic) {
-        int epicId = ++uid;
+        int epicId = idGenerator.nextId();
         newEpic.setId(epicId);
         epics.put(epicId, newEpic);
+        indexEpicSubtasks(newEpic);
         updateEpicStatus(newEpic);
-        prioritizedTasks.put(newEpic, newEpic.getStartTime());
+        addToIndexes(newEpic);
+        publishEvent(TaskEventType.CREATED, null, newEpic);
         return epicId;
     }
 
@@ -125,84 +392,145 @@ public class InMemoryTaskManager implements TaskManager {
             return -1;
         }
 
-        int subtaskId = ++uid;
-        newSubtask.setId(subtaskId);
-        subtasks.put(subtaskId, newSubtask);
+        int subtaskId = insertSubtask(newSubtask, epic);
+        refreshEpic(epic);
+        return subtaskId;
+    }
 
-        prioritizedTasks.put(newSubtask, newSubtask.getStartTime());
+    @Override
+    public List<Integer> createTasks(List<Task> newTasks) {
+        boolean[] rejected = rejectOverlapping(newTasks);
+        List<Integer> ids = new ArrayList<>(newTasks.size());
+        for (int i = 0; i < newTasks.size(); i++) {
+            ids.add(rejected[i] ? -1 : insertTask(newTasks.get(i)));
+        }
+        return ids;
+    }
 
-        epic.addSubtaskId(subtaskId);
-        updateEpicStatus(epic);
-        updateEpicTime(epic);
+    @Override
+    public List<Integer> createSubtasks(List<Subtask> newSubtasks) {
+        boolean[] rejected = new boolean[newSubtasks.size()];
+        for (int i = 0; i < newSubtasks.size(); i++) {
+            if (!epics.containsKey(newSubtasks.get(i).getEpicId())) {
+                System.out.println("epic == null");
+                rejected[i] = true;
+            }
+        }
+        rejectOverlapping(newSubtasks, rejected);
 
-        return subtaskId;
+        List<Integer> ids = new ArrayList<>(newSubtasks.size());
+        IntObjectMap<Epic> touchedEpics = new IntObjectMap<>();
+        for (int i = 0; i < newSubtasks.size(); i++) {
+            if (rejected[i]) {
+                ids.add(-1);
+                continue;
+            }
+            Subtask subtask = newSubtasks.get(i);
+            Epic epic = epics.get(subtask.getEpicId());
+            ids.add(insertSubtask(subtask, epic));
+            touchedEpics.put(epic.getId(), epic);
+        }
+        refreshEpics(touchedEpics);
+        return ids;
     }
 
     @Override
     public int updateTask(Task task) {
-        tasks.put(task.getId(), task);
-        prioritizedTasks.put(task, task.getStartTime());
+        replaceTask(task);
         return task.getId();
     }
 
     @Override
     public int updateEpic(Epic epic) {
-        epics.put(epic.getId(), epic);
-        prioritizedTasks.put(epic, epic.getStartTime());
+        Epic oldEpic = epics.put(epic.getId(), epic);
+        if (oldEpic != null) {
+            removeFromIndexes(oldEpic);
+        }
+        indexEpicSubtasks(epic);
+        addToIndexes(epic);
         updateEpicTime(epic);
+        publishReplaced(oldEpic, epic);
         return epic.getId();
     }
 
     @Override
     public int updateSubtask(Subtask subtask) {
-        subtasks.put(subtask.getId(), subtask);
-        prioritizedTasks.put(subtask, subtask.getStartTime());
-        Epic epic = epics.get(subtask.getEpicId());
-        updateEpicStatus(epic);
-        updateEpicTime(epic);
+        IntObjectMap<Epic> touchedEpics = new IntObjectMap<>();
+        replaceSubtask(subtask, touchedEpics);
+        refreshEpics(touchedEpics);
         return subtask.getId();
     }
 
+    @Override
+    public List<Integer> updateTasks(List<Task> updatedTasks) {
+        List<Integer> ids = new ArrayList<>(updatedTasks.size());
+        for (Task task : updatedTasks) {
+            replaceTask(task);
+            ids.add(task.getId());
+        }
+        return ids;
+    }
+
+    @Override
+    public List<Integer> updateSubtasks(List<Subtask> updatedSubtasks) {
+        List<Integer> ids = new ArrayList<>(updatedSubtasks.size());
+        IntObjectMap<Epic> touchedEpics = new IntObjectMap<>();
+        for (Subtask subtask : updatedSubtasks) {
+            replaceSubtask(subtask, touchedEpics);
+            ids.add(subtask.getId());
+        }
+        refreshEpics(touchedEpics);
+        return ids;
+    }
+
     @Override
     public void deleteTask(int taskId) {
-        Task task = tasks.remove(taskId);
-        prioritizedTasks.remove(task);
-        historyManager.remove(taskId);
+        removeTask(taskId);
     }
 
     @Override
     public void deleteEpic(int epicId) {
-        Epic epic = epics.remove(epicId);
-        historyManager.remove(epicId);
-        prioritizedTasks.remove(epic);
-
-        for (Integer subtaskId : epic.getSubtasksId()) {
-            Subtask subtask = subtasks.remove(subtaskId);
-            historyManager.remove(subtaskId);
-            prioritizedTasks.remove(subtask);
-        }
+        removeEpic(epicId);
     }
 
     @Override
     public void deleteSubtask(int subtaskId) {
-        Epic epic = epics.get(subtasks.get(subtaskId).getEpicId());
-        epic.removeSubtaskId(subtaskId);
-        Subtask subtask = subtasks.remove(subtaskId);
-        historyManager.remove(subtaskId);
-        prioritizedTasks.remove(subtask);
-        updateEpicStatus(epic);
-        updateEpicTime(epic);
+        Epic epic = removeSubtask(subtaskId);
+        refreshEpic(epic);
     }
 
     @Override
-    public List<Subtask> getSubtasksFromEpic(int epicId) {
-        List<Subtask> subtasksFromEpic = new ArrayList<>();
-        for (Map.Entry<Integer, Subtask> subtask : subtasks.entrySet()) {
-            if (subtask.getValue().getEpicId() == epicId) {
-                subtasksFromEpic.add(subtask.getValue());
+    public void deleteByIds(List<Integer> ids) {
+        IntObjectMap<Epic> touchedEpics = new IntObjectMap<>();
+        for (int id : ids) {
+            Task task = registry.get(id);
+            if (task == null) {
+                continue;
+            }
+            switch (task.getType()) {
+                case TASK:
+                    removeTask(id);
+                    break;
+                case EPIC:
+                    removeEpic(id);
+                    touchedEpics.remove(id);
+                    break;
+                case SUBTASK:
+                    Epic epic = removeSubtask(id);
+                    touchedEpics.put(epic.getId(), epic);
+                    break;
             }
         }
-        return subtasksFromEpic;
+        refreshEpics(touchedEpics);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksFromEpic(int epicId) {
+        IntObjectMap<Subtask> epicSubtasks = subtasksByEpic.get(epicId);
+        if (epicSubtasks == null) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(epicSubtasks.values());
     }
 
     @Override
@@ -210,62 +538,243 @@ public class InMemoryTaskManager implements TaskManager {
         return historyManager.getHistory();
     }
 
-    protected void updateEpicStatus(Epic epic) {
-        List<Integer> epicSubtasksId = epic.getSubtasksId();
-        List<Subtask> epicSubtasks = new ArrayList<>();
+    @Override
+    public List<Task> getHistory(int offset, int limit) {
+        return historyManager.getHistory(offset, limit);
+    }
+
+    @Override
+    public List<Task> getRecentHistory(int count) {
+        return historyManager.getRecentHistory(count);
+    }
 
-        for (Integer subtaskId : epicSubtasksId) {
-            epicSubtasks.add(subtasks.get(subtaskId));
+    /**
+     * Добавляет задачу в список приоритетов, а задачу и подзадачу — еще и в интервальное дерево своего типа
+     *
+     * @param task объект задачи
+     */
+    protected void addToIndexes(Task task) {
+        changed(task.getType());
+        registry.put(task.getId(), task);
+        statusIndex.add(task);
+        textIndex.add(task);
+        prioritizedTasks.add(task);
+        IntervalTree schedule = scheduleOf(task);
+        if (schedule != null) {
+            schedule.add(task);
+            freeTime.add(task);
+            occupancy.add(task);
         }
+    }
 
-        epic.setStatus(InMemoryTaskManager.calculateStatus(epicSubtasks));
+    protected void removeFromIndexes(Task task) {
+        if (task == null) {
+            return;
+        }
+        changed(task.getType());
+        if (registry.get(task.getId()) == task) {
+            registry.remove(task.getId());
+            statusIndex.remove(task);
+            textIndex.remove(task.getId());
+        }
+        prioritizedTasks.remove(task);
+        IntervalTree schedule = scheduleOf(task);
+        if (schedule != null) {
+            schedule.remove(task.getId());
+            freeTime.remove(task.getId());
+            occupancy.remove(task.getId());
+        }
     }
 
-    protected void updateEpicTime(Epic epic) {
+    /**
+     * Публикует новую версию снимка, сбрасывая в нем списки, затронутые изменением задач указанного типа
+     *
+     * @param type тип измененных задач
+     */
+    protected void changed(TaskType type) {
+        snapshot.updateAndGet(s -> s.changed(type));
+    }
 
-        prioritizedTasks.remove(epic);
+    private void publish(TaskSnapshot built, UnaryOperator<TaskSnapshot> update) {
+        snapshot.updateAndGet(s -> s.getVersion() == built.getVersion() ? update.apply(s) : s);
+    }
 
-        LocalDateTime startTime = null;
-        Duration duration = null;
-        LocalDateTime endTime = null;
+    private IntervalTree scheduleOf(Task task) {
+        switch (task.getType()) {
+            case TASK:
+                return taskSchedule;
+            case SUBTASK:
+                return subtaskSchedule;
+            default:
+                return null;
+        }
+    }
 
-        if (!(epic.getSubtasksId().isEmpty())) {
-            Subtask firstSubtask = subtasks.get(epic.getSubtasksId().get(0));
-            startTime = firstSubtask.getStartTime();
-            endTime = firstSubtask.getEndTime();
+    /**
+     * Освобождает время задач, удаленных целиком вместе с их интервальным деревом. Если расписание
+     * опустело, индексы свободного времени и занятости очищаются за O(1); иначе из них убираются
+     * только интервалы удаленных задач
+     *
+     * @param removed удаленные задачи
+     */
+    private void releaseTime(Collection<? extends Task> removed) {
+        if (taskSchedule.isEmpty() && subtaskSchedule.isEmpty()) {
+            freeTime.clear();
+            occupancy.clear();
+            return;
+        }
+        freeTime.removeAll(removed);
+        for (Task task : removed) {
+            occupancy.remove(task.getId());
+        }
+    }
 
-            List<Integer> epicSubtasksId = epic.getSubtasksId();
-            List<Subtask> epicSubtasks = new ArrayList<>();
+    private void unregister(Collection<? extends Task> removed) {
+        for (Task task : removed) {
+            registry.remove(task.getId());
+            textIndex.remove(task.getId());
+        }
+    }
 
-            for (Integer subtaskId : epicSubtasksId) {
-                epicSubtasks.add(subtasks.get(subtaskId));
-            }
+    /**
+     * Добавляет подзадачу в эпик и в индекс подзадач эпика, учитывает ее статус в счетчиках эпика
+     *
+     * @param epic    объект эпика
+     * @param subtask объект подзадачи
+     */
+    protected void linkSubtask(Epic epic, Subtask subtask) {
+        epic.addSubtaskId(subtask.getId());
+        subtasksByEpic.computeIfAbsent(epic.getId(), id -> new IntObjectMap<>()).put(subtask.getId(), subtask);
+        epicTimelines.computeIfAbsent(epic.getId(), id -> new EpicTimeline()).add(subtask);
+        countSubtaskStatus(epic, subtask);
+    }
 
-            for (Subtask subtask : epicSubtasks) {
-                if (subtask.getStartTime() != null) {
-                    duration = subtask.getDuration();
-                    if (subtask.getStartTime().isBefore(startTime)) {
-                        startTime = subtask.getStartTime();
-                    }
-                    if (subtask.getEndTime().isAfter(endTime)) {
-                        endTime = subtask.getEndTime();
-                    }
-                    duration = duration.plus(subtask.getDuration());
-                }
+    protected void unlinkSubtask(Epic epic, Subtask subtask) {
+        epic.removeSubtaskId(subtask.getId());
+        IntObjectMap<Subtask> epicSubtasks = subtasksByEpic.get(epic.getId());
+        if (epicSubtasks != null) {
+            epicSubtasks.remove(subtask.getId());
+        }
+        EpicTimeline timeline = epicTimelines.get(epic.getId());
+        if (timeline != null) {
+            timeline.remove(subtask.getId());
+        }
+        uncountSubtaskStatus(epic, subtask.getId());
+    }
+
+    /**
+     * Перестраивает индекс подзадач эпика по списку id подзадач, хранящемуся в самом эпике
+     *
+     * @param epic объект эпика
+     */
+    protected void indexEpicSubtasks(Epic epic) {
+        IntObjectMap<Subtask> epicSubtasks = new IntObjectMap<>();
+        EpicTimeline timeline = new EpicTimeline();
+        for (Integer subtaskId : epic.getSubtasksId()) {
+            Subtask subtask = subtasks.get(subtaskId);
+            if (subtask != null) {
+                epicSubtasks.put(subtaskId, subtask);
+                timeline.add(subtask);
             }
         }
+        subtasksByEpic.put(epic.getId(), epicSubtasks);
+        epicTimelines.put(epic.getId(), timeline);
+        countEpicSubtasks(epic);
+    }
+
+    private Collection<Subtask> getEpicSubtasks(Epic epic) {
+        IntObjectMap<Subtask> epicSubtasks = subtasksByEpic.get(epic.getId());
+        if (epicSubtasks == null) {
+            return Collections.emptyList();
+        }
+        return epicSubtasks.values();
+    }
+
+    private void countEpicSubtasks(Epic epic) {
+        epic.resetSubtaskStatusCounts();
+        for (Subtask subtask : getEpicSubtasks(epic)) {
+            countSubtaskStatus(epic, subtask);
+        }
+    }
+
+    private void countSubtaskStatus(Epic epic, Subtask subtask) {
+        countedStatuses.put(subtask.getId(), subtask.getStatus());
+        epic.countSubtaskStatus(subtask.getStatus());
+    }
 
-        epic.setStartTime(startTime);
-        epic.setDuration(duration);
-        epic.setEndTime(endTime);
+    /**
+     * Снимает подзадачу со счетчиков эпика по статусу, под которым она была учтена
+     *
+     * @param epic      объект эпика
+     * @param subtaskId id подзадачи
+     */
+    private void uncountSubtaskStatus(Epic epic, int subtaskId) {
+        epic.uncountSubtaskStatus(countedStatuses.remove(subtaskId));
+    }
 
-        prioritizedTasks.put(epic, epic.getStartTime());
+    /**
+     * Пересчитывает счетчики статусов подзадач эпика заново и обновляет его статус
+     *
+     * @param epic объект эпика
+     */
+    protected void updateEpicStatus(Epic epic) {
+        countEpicSubtasks(epic);
+        refreshEpicStatus(epic);
+    }
+
+    /**
+     * Обновляет статус эпика по счетчикам статусов его подзадач. Все изменения статуса эпика
+     * проходят через этот метод, поэтому индекс статусов всегда согласован со статусами эпиков
+     *
+     * @param epic объект эпика
+     */
+    protected void refreshEpicStatus(Epic epic) {
+        TaskStatus status = epic.getStatusBySubtasks();
+        if (epic.getStatus() == status) {
+            return;
+        }
+        boolean indexed = registry.get(epic.getId()) == epic;
+        if (indexed) {
+            statusIndex.remove(epic);
+        }
+        epic.setStatus(status);
+        if (indexed) {
+            statusIndex.add(epic);
+        }
+    }
+
+    /**
+     * Обновляет время начала, окончания и продолжительность эпика по индексу времени его подзадач.
+     * Продолжительность эпика — сумма продолжительностей подзадач со временем начала, а не промежуток
+     * от начала до окончания. Эпик переставляется в списке приоритетов, только если изменилось время его начала
+     *
+     * @param epic объект эпика
+     */
+    protected void updateEpicTime(Epic epic) {
+        EpicTimeline timeline = epicTimelines.computeIfAbsent(epic.getId(), id -> new EpicTimeline());
+
+        LocalDateTime startTime = timeline.getStartTime();
+        if (!Objects.equals(startTime, epic.getStartTime())) {
+            changed(TaskType.EPIC);
+            prioritizedTasks.remove(epic);
+            epic.setStartTime(startTime);
+            prioritizedTasks.add(epic);
+        }
+        epic.setDuration(timeline.getDuration());
+        epic.setEndTime(timeline.getEndTime());
     }
 
     protected HistoryManager getHistoryManager() {
         return historyManager;
     }
 
+    /**
+     * Вычисляет статус эпика полным перебором подзадач. Менеджер ведет статусы эпиков по счетчикам,
+     * метод оставлен для проверки
+     *
+     * @param subtasks список подзадач эпика
+     * @return статус эпика
+     */
     public static TaskStatus calculateStatus(List<Subtask> subtasks) {
         if (subtasks.isEmpty()) {
             return TaskStatus.NEW;
@@ -291,18 +800,234 @@ public class InMemoryTaskManager implements TaskManager {
         }
     }
 
-    private boolean isCrossOverInTime(Task newTask) {
-        if (newTask.getStartTime() != null) {
-            for (Task task : prioritizedTasks.keySet()) {
-                if (task.getClass() == Epic.class || task.getStartTime() == null) {
-                    continue;
-                }
-                if ((newTask.getStartTime().isAfter(task.getStartTime()) && newTask.getStartTime().isBefore(task.getEndTime())) ||
-                        newTask.getStartTime().isEqual(task.getStartTime())) {
-                    System.out.println("Задачи пересекаются по времени. Задача не создана.");
-                    return true;
-                }
+    /**
+     * Восстанавливает задачи, эпики и подзадачи с уже назначенными id. Сначала добавляются все записи,
+     * затем каждый затронутый эпик пересчитывается один раз: время и счетчики статусов подзадач эпиков
+     * собираются параллельно в ForkJoinPool — эпики не зависят друг от друга, — а статусы и время
+     * переносятся в общие индексы последовательно. Загрузка эпика с k подзадачами стоит O(k log k).
+     * Подзадачи, эпика которых нет, пропускаются
+     *
+     * @param records задачи, эпики и подзадачи в любом порядке
+     */
+    protected void restore(Collection<? extends Task> records) {
+        IntObjectMap<Epic> touchedEpics = new IntObjectMap<>();
+        for (Task record : records) {
+            switch (record.getType()) {
+                case TASK:
+                    idGenerator.advanceTo(record.getId());
+                    tasks.put(record.getId(), record);
+                    addToIndexes(record);
+                    break;
+                case EPIC:
+                    Epic epic = (Epic) record;
+                    idGenerator.advanceTo(epic.getId());
+                    epics.put(epic.getId(), epic);
+                    subtasksByEpic.put(epic.getId(), new IntObjectMap<>());
+                    addToIndexes(epic);
+                    touchedEpics.put(epic.getId(), epic);
+                    break;
+            }
+        }
+        for (Task record : records) {
+            if (record.getType() != TaskType.SUBTASK) {
+                continue;
+            }
+            Subtask subtask = (Subtask) record;
+            Epic epic = epics.get(subtask.getEpicId());
+            if (epic == null) {
+                System.out.println("epic == null");
+                continue;
+            }
+            idGenerator.advanceTo(subtask.getId());
+            subtasks.put(subtask.getId(), subtask);
+            addToIndexes(subtask);
+            epic.addSubtaskId(subtask.getId());
+            subtasksByEpic.computeIfAbsent(epic.getId(), id -> new IntObjectMap<>()).put(subtask.getId(), subtask);
+            countedStatuses.put(subtask.getId(), subtask.getStatus());
+            touchedEpics.put(epic.getId(), epic);
+        }
+
+        Epic[] restoredEpics = touchedEpics.values().toArray(new Epic[0]);
+        EpicTimeline[] timelines = new EpicTimeline[restoredEpics.length];
+        IntStream range = IntStream.range(0, restoredEpics.length);
+        (restoredEpics.length < PARALLEL_RESTORE_EPICS ? range : range.parallel()).forEach(i -> {
+            Epic epic = restoredEpics[i];
+            EpicTimeline timeline = new EpicTimeline();
+            epic.resetSubtaskStatusCounts();
+            for (Subtask subtask : subtasksByEpic.get(epic.getId()).values()) {
+                timeline.add(subtask);
+                epic.countSubtaskStatus(subtask.getStatus());
             }
+            timelines[i] = timeline;
+        });
+        for (int i = 0; i < restoredEpics.length; i++) {
+            epicTimelines.put(restoredEpics[i].getId(), timelines[i]);
+            refreshEpic(restoredEpics[i]);
+        }
+    }
+
+    private int insertTask(Task newTask) {
+        int taskId = idGenerator.nextId();
+        newTask.setId(taskId);
+        tasks.put(taskId, newTask);
+        addToIndexes(newTask);
+        publishEvent(TaskEventType.CREATED, null, newTask);
+        return taskId;
+    }
+
+    private int insertSubtask(Subtask newSubtask, Epic epic) {
+        int subtaskId = idGenerator.nextId();
+        newSubtask.setId(subtaskId);
+        subtasks.put(subtaskId, newSubtask);
+        addToIndexes(newSubtask);
+        linkSubtask(epic, newSubtask);
+        publishEvent(TaskEventType.CREATED, null, newSubtask);
+        return subtaskId;
+    }
+
+    private void replaceTask(Task task) {
+        Task oldTask = tasks.put(task.getId(), task);
+        if (oldTask != null) {
+            removeFromIndexes(oldTask);
+        }
+        addToIndexes(task);
+        publishReplaced(oldTask, task);
+    }
+
+    private void removeTask(int taskId) {
+        Task task = tasks.remove(taskId);
+        removeFromIndexes(task);
+        historyManager.remove(taskId);
+        if (task != null) {
+            publishEvent(TaskEventType.DELETED, task, null);
+        }
+    }
+
+    private void removeEpic(int epicId) {
+        Epic epic = epics.remove(epicId);
+        historyManager.remove(epicId);
+        removeFromIndexes(epic);
+
+        epicTimelines.remove(epicId);
+        for (Subtask subtask : subtasksByEpic.remove(epicId).values()) {
+            final int subtaskId = subtask.getId();
+            subtasks.remove(subtaskId);
+            countedStatuses.remove(subtaskId);
+            historyManager.remove(subtaskId);
+            removeFromIndexes(subtask);
+            publishEvent(TaskEventType.DELETED, subtask, null);
+        }
+        publishEvent(TaskEventType.DELETED, epic, null);
+    }
+
+    /**
+     * Заменяет подзадачу новой версией и переносит ее в эпик новой версии. Статус и время эпиков
+     * не пересчитываются — затронутые эпики добавляются в touchedEpics
+     *
+     * @param subtask      новая версия подзадачи
+     * @param touchedEpics эпики, которые нужно пересчитать
+     */
+    private void replaceSubtask(Subtask subtask, IntObjectMap<Epic> touchedEpics) {
+        Subtask oldSubtask = subtasks.put(subtask.getId(), subtask);
+        if (oldSubtask != null) {
+            removeFromIndexes(oldSubtask);
+            Epic oldEpic = epics.get(oldSubtask.getEpicId());
+            if (oldEpic != null && oldSubtask.getEpicId() == subtask.getEpicId()) {
+                uncountSubtaskStatus(oldEpic, oldSubtask.getId());
+            } else if (oldEpic != null) {
+                unlinkSubtask(oldEpic, oldSubtask);
+                touchedEpics.put(oldEpic.getId(), oldEpic);
+            }
+        }
+        addToIndexes(subtask);
+        Epic epic = epics.get(subtask.getEpicId());
+        linkSubtask(epic, subtask);
+        touchedEpics.put(epic.getId(), epic);
+        publishReplaced(oldSubtask, subtask);
+    }
+
+    /**
+     * Удаляет подзадачу без пересчета статуса и времени ее эпика
+     *
+     * @param subtaskId id подзадачи
+     * @return эпик удаленной подзадачи
+     */
+    private Epic removeSubtask(int subtaskId) {
+        Subtask subtask = subtasks.remove(subtaskId);
+        Epic epic = epics.get(subtask.getEpicId());
+        unlinkSubtask(epic, subtask);
+        historyManager.remove(subtaskId);
+        removeFromIndexes(subtask);
+        publishEvent(TaskEventType.DELETED, subtask, null);
+        return epic;
+    }
+
+    /**
+     * Публикует событие изменения. Наследник, выполняющий изменения под блокировкой, может отложить
+     * публикацию до освобождения блокировки, сохранив порядок событий
+     *
+     * @param type   тип изменения
+     * @param before задача до изменения или null
+     * @param after  задача после изменения или null
+     */
+    protected void publishEvent(TaskEventType type, Task before, Task after) {
+        events.publish(type, before, after);
+    }
+
+    private void publishReplaced(Task before, Task after) {
+        publishEvent(before == null ? TaskEventType.CREATED : TaskEventType.UPDATED, before, after);
+    }
+
+    private void publishDeleted(Collection<? extends Task> removed) {
+        if (!events.hasListeners()) {
+            return;
+        }
+        for (Task task : removed) {
+            publishEvent(TaskEventType.DELETED, task, null);
+        }
+    }
+
+    private void refreshEpic(Epic epic) {
+        refreshEpicStatus(epic);
+        updateEpicTime(epic);
+    }
+
+    private void refreshEpics(IntObjectMap<Epic> touchedEpics) {
+        for (Epic epic : touchedEpics.values()) {
+            refreshEpic(epic);
+        }
+    }
+
+    /**
+     * Отбирает задачи пакета, которые можно создать: задача не должна пересекаться по времени
+     * ни с уже созданными задачами, ни с другими задачами пакета
+     *
+     * @param batch    пакет новых задач
+     * @param rejected отметки уже отклоненных задач пакета; сюда же записываются новые отметки
+     */
+    private void rejectOverlapping(List<? extends Task> batch, boolean[] rejected) {
+        for (int i = 0; i < batch.size(); i++) {
+            if (!rejected[i] && isCrossOverInTime(batch.get(i))) {
+                rejected[i] = true;
+            }
+        }
+        IntervalTree.rejectOverlapping(batch, rejected);
+    }
+
+    private boolean[] rejectOverlapping(List<? extends Task> batch) {
+        boolean[] rejected = new boolean[batch.size()];
+        rejectOverlapping(batch, rejected);
+        return rejected;
+    }
+
+    private boolean overlapsSchedule(Task task) {
+        return taskSchedule.hasOverlapping(task) || subtaskSchedule.hasOverlapping(task);
+    }
+
+    private boolean isCrossOverInTime(Task newTask) {
+        if (overlapsSchedule(newTask)) {
+            System.out.println("Задачи пересекаются по времени. Задача не создана.");
+            return true;
         }
         return false;
     }
@@ -0,0 +1,708 @@
+package manager.memory;
+
+import manager.HistoryManager;
+import manager.Managers;
+import manager.TaskManager;
+import manager.event.EventDispatcher;
+import manager.event.TaskEventListener;
+import manager.event.TaskEventType;
+import manager.id.StripedIdGenerator;
+import manager.memory.history.ConcurrentHistoryManager;
+import manager.memory.index.IntervalTree;
+import manager.memory.index.OccupancyIndex;
+import manager.memory.index.PrioritizedIndex;
+import manager.memory.index.TextIndex;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+import task.TaskType;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Менеджер задач, разделенный на независимые разделы — потокобезопасные менеджеры со своими блокировками.
+ * Задачи и эпики распределяются по разделам по очереди, подзадачи попадают в раздел своего эпика.
+ * Каждый раздел выдает id из своей полосы, поэтому раздел задачи определяется по id без общего словаря,
+ * а операции с разными разделами не ждут друг друга.
+ * <p>
+ * Списки собираются со всех разделов: списки в порядке приоритета и результаты поиска сливаются
+ * из отсортированных списков разделов, остальные списки упорядочиваются по id. Полные списки задач
+ * и приоритетов запоминаются и собираются заново, только если изменился список хотя бы одного раздела.
+ * История просмотров и подписчики на события общие для всех разделов.
+ * <p>
+ * Пересечение по времени проверяется внутри раздела, поэтому создание задач со временем начала
+ * выполняется под общей блокировкой расписания и проверяется по всем разделам. Задачи без времени
+ * создаются без общей блокировки. Пакетные операции атомарны в пределах раздела, но не всего пакета.
+ * Подзадача, перенесенная в эпик другого раздела, переезжает вместе с id: такие id запоминаются отдельно.
+ */
+public class ShardedTaskManager implements TaskManager {
+
+    private static final int ANY_SHARD = -1;
+
+    private static final Comparator<Task> BY_ID = Comparator.comparingInt(Task::getId);
+
+    private final ConcurrentTaskManager[] shards;
+
+    private final HistoryManager historyManager;
+
+    private final EventDispatcher events = new EventDispatcher();
+
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    private final ReentrantLock scheduleLock = new ReentrantLock();
+
+    private final Map<Integer, Integer> relocated = new ConcurrentHashMap<>();    // id подзадачи -> раздел
+
+    private final AtomicReference<View<Task>> tasksView = new AtomicReference<>();
+    private final AtomicReference<View<Epic>> epicsView = new AtomicReference<>();
+    private final AtomicReference<View<Subtask>> subtasksView = new AtomicReference<>();
+    private final AtomicReference<View<Task>> prioritizedView = new AtomicReference<>();
+
+    public ShardedTaskManager() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public ShardedTaskManager(int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Количество разделов должно быть положительным: " + shardCount);
+        }
+        historyManager = new ConcurrentHistoryManager(Managers.getDefaultHistory());
+        shards = new ConcurrentTaskManager[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new ConcurrentTaskManager(historyManager, new StripedIdGenerator(i, shardCount), events);
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        return cached(tasksView, ConcurrentTaskManager::getTasks, ShardedTaskManager::collect);
+    }
+
+    @Override
+    public List<Epic> getEpics() {
+        return cached(epicsView, ConcurrentTaskManager::getEpics, ShardedTaskManager::collect);
+    }
+
+    @Override
+    public List<Subtask> getSubtasks() {
+        return cached(subtasksView, ConcurrentTaskManager::getSubtasks, ShardedTaskManager::collect);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return cached(prioritizedView, ConcurrentTaskManager::getPrioritizedTasks,
+                sources -> merge(sources, PrioritizedIndex.COMPARATOR, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(TaskStatus status) {
+        List<Task> result = new ArrayList<>();
+        for (TaskType type : TaskType.values()) {
+            result.addAll(getTasksByStatus(type, status));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(TaskType type, TaskStatus status) {
+        return collect(query(shard -> shard.getTasksByStatus(type, status)));
+    }
+
+    @Override
+    public int getStatusCount(TaskType type, TaskStatus status) {
+        int count = 0;
+        for (ConcurrentTaskManager shard : shards) {
+            count += shard.getStatusCount(type, status);
+        }
+        return count;
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        List<Task> result = new ArrayList<>();
+        for (TextIndex.Match match : merge(query(shard -> shard.searchRanked(query, limit)), TextIndex.ORDER, limit)) {
+            result.add(match.getTask());
+        }
+        return result;
+    }
+
+    /**
+     * Ищет промежуток, свободный во всех разделах: начало сдвигается к ответу очередного раздела,
+     * пока все разделы не вернут одно и то же время
+     */
+    @Override
+    public LocalDateTime findFreeSlot(Duration duration, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime candidate = from;
+        int agreed = 0;
+        for (int i = 0; agreed < shards.length; i = (i + 1) % shards.length) {
+            LocalDateTime slot = shards[i].findFreeSlot(duration, candidate, to);
+            if (slot == null) {
+                return null;
+            }
+            if (slot.equals(candidate)) {
+                agreed++;
+            } else {
+                candidate = slot;
+                agreed = 1;
+            }
+        }
+        return candidate;
+    }
+
+    @Override
+    public double getUtilization(LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            return 0;
+        }
+        return OccupancyIndex.utilization(getBusySlots(from.toLocalDate(), to.minusNanos(1).toLocalDate()),
+                from, to);
+    }
+
+    @Override
+    public Map<LocalDate, int[]> getOccupancyHeatmap(LocalDate from, LocalDate to) {
+        return OccupancyIndex.heatmap(getBusySlots(from, to), from, to);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return merge(query(shard -> shard.getPrioritizedTasksBetween(from, to)), PrioritizedIndex.COMPARATOR,
+                Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksAfter(int afterId, int limit) {
+        Task after = null;
+        if (afterId != 0) {
+            after = shardOf(afterId).getById(afterId);
+            if (after == null) {
+                return new ArrayList<>();
+            }
+        }
+        final Task position = after;
+        return merge(query(shard -> shard.getPrioritizedTasksAfter(position, limit)), PrioritizedIndex.COMPARATOR,
+                limit);
+    }
+
+    @Override
+    public void deleteTasks() {
+        for (ConcurrentTaskManager shard : shards) {
+            shard.deleteTasks();
+        }
+    }
+
+    @Override
+    public void deleteEpics() {
+        for (ConcurrentTaskManager shard : shards) {
+            shard.deleteEpics();
+        }
+        relocated.clear();
+    }
+
+    @Override
+    public void deleteSubtasks() {
+        for (ConcurrentTaskManager shard : shards) {
+            shard.deleteSubtasks();
+        }
+        relocated.clear();
+    }
+
+    @Override
+    public Task getTask(int id) {
+        return shardOf(id).getTask(id);
+    }
+
+    @Override
+    public Task getById(int id) {
+        return shardOf(id).getById(id);
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        return shardOf(id).getEpic(id);
+    }
+
+    @Override
+    public Subtask getSubtask(int id) {
+        return shardOf(id).getSubtask(id);
+    }
+
+    @Override
+    public int createTask(Task task) {
+        ConcurrentTaskManager shard = shards[nextShard()];
+        if (task.getStartTime() == null) {
+            return shard.createTask(task);
+        }
+        scheduleLock.lock();
+        try {
+            return isCrossOverInTime(task) ? -1 : shard.createTask(task);
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    @Override
+    public int createEpic(Epic epic) {
+        return shards[nextShard()].createEpic(epic);
+    }
+
+    @Override
+    public int createSubtask(Subtask subtask) {
+        ConcurrentTaskManager shard = shardOf(subtask.getEpicId());
+        if (subtask.getStartTime() == null) {
+            return shard.createSubtask(subtask);
+        }
+        scheduleLock.lock();
+        try {
+            return isCrossOverInTime(subtask) ? -1 : shard.createSubtask(subtask);
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Integer> createTasks(List<Task> tasks) {
+        int[] targets = new int[tasks.size()];
+        Arrays.fill(targets, ANY_SHARD);
+        return createBatch(tasks, targets, new boolean[tasks.size()], ConcurrentTaskManager::createTasks);
+    }
+
+    @Override
+    public List<Integer> createSubtasks(List<Subtask> subtasks) {
+        int[] targets = new int[subtasks.size()];
+        boolean[] rejected = new boolean[subtasks.size()];
+        for (int i = 0; i < targets.length; i++) {
+            final int epicId = subtasks.get(i).getEpicId();
+            targets[i] = StripedIdGenerator.stripeOf(epicId, shards.length);
+            Task epic = shards[targets[i]].getById(epicId);
+            if (epic == null || epic.getType() != TaskType.EPIC) {
+                System.out.println("epic == null");
+                rejected[i] = true;
+            }
+        }
+        return createBatch(subtasks, targets, rejected, ConcurrentTaskManager::createSubtasks);
+    }
+
+    @Override
+    public int updateTask(Task task) {
+        return shardOf(task.getId()).updateTask(task);
+    }
+
+    @Override
+    public int updateEpic(Epic epic) {
+        return shardOf(epic.getId()).updateEpic(epic);
+    }
+
+    @Override
+    public int updateSubtask(Subtask subtask) {
+        int from = shardIndexOf(subtask.getId());
+        int to = shardIndexOf(subtask.getEpicId());
+        if (from == to) {
+            return shards[to].updateSubtask(subtask);
+        }
+        return moveSubtask(subtask, from, to);
+    }
+
+    @Override
+    public List<Integer> updateTasks(List<Task> tasks) {
+        List<List<Task>> batches = batches();
+        for (Task task : tasks) {
+            batches.get(shardIndexOf(task.getId())).add(task);
+        }
+        for (int i = 0; i < shards.length; i++) {
+            if (!batches.get(i).isEmpty()) {
+                shards[i].updateTasks(batches.get(i));
+            }
+        }
+        List<Integer> ids = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            ids.add(task.getId());
+        }
+        return ids;
+    }
+
+    @Override
+    public List<Integer> updateSubtasks(List<Subtask> subtasks) {
+        List<List<Subtask>> batches = batches();
+        List<Integer> ids = new ArrayList<>(subtasks.size());
+        for (Subtask subtask : subtasks) {
+            int from = shardIndexOf(subtask.getId());
+            int to = shardIndexOf(subtask.getEpicId());
+            if (from == to) {
+                batches.get(to).add(subtask);
+                ids.add(subtask.getId());
+            } else {
+                ids.add(moveSubtask(subtask, from, to));
+            }
+        }
+        for (int i = 0; i < shards.length; i++) {
+            if (!batches.get(i).isEmpty()) {
+                shards[i].updateSubtasks(batches.get(i));
+            }
+        }
+        return ids;
+    }
+
+    @Override
+    public void deleteTask(int taskId) {
+        shardOf(taskId).deleteTask(taskId);
+    }
+
+    @Override
+    public void deleteEpic(int epicId) {
+        ConcurrentTaskManager shard = shardOf(epicId);
+        List<Subtask> subtasks = relocatedSubtasksOf(shard, epicId);
+        shard.deleteEpic(epicId);
+        for (Subtask subtask : subtasks) {
+            forgetRelocated(subtask.getId());
+        }
+    }
+
+    @Override
+    public void deleteSubtask(int subtaskId) {
+        shardOf(subtaskId).deleteSubtask(subtaskId);
+        forgetRelocated(subtaskId);
+    }
+
+    @Override
+    public void deleteByIds(List<Integer> ids) {
+        List<List<Integer>> batches = batches();
+        List<Subtask> subtasks = new ArrayList<>();
+        for (int id : ids) {
+            final int shard = shardIndexOf(id);
+            batches.get(shard).add(id);
+            subtasks.addAll(relocatedSubtasksOf(shards[shard], id));
+        }
+        for (int i = 0; i < shards.length; i++) {
+            if (!batches.get(i).isEmpty()) {
+                shards[i].deleteByIds(batches.get(i));
+            }
+        }
+        for (int id : ids) {
+            forgetRelocated(id);
+        }
+        for (Subtask subtask : subtasks) {
+            forgetRelocated(subtask.getId());
+        }
+    }
+
+    @Override
+    public List<Subtask> getSubtasksFromEpic(int epicId) {
+        return shardOf(epicId).getSubtasksFromEpic(epicId);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public List<Task> getHistory(int offset, int limit) {
+        return historyManager.getHistory(offset, limit);
+    }
+
+    @Override
+    public List<Task> getRecentHistory(int count) {
+        return historyManager.getRecentHistory(count);
+    }
+
+    @Override
+    public void subscribe(TaskEventListener listener) {
+        events.subscribe(listener);
+    }
+
+    @Override
+    public void unsubscribe(TaskEventListener listener) {
+        events.unsubscribe(listener);
+    }
+
+    @Override
+    public void close() {
+        events.close();
+        historyManager.close();
+    }
+
+    private int nextShard() {
+        return Math.floorMod(nextShard.getAndIncrement(), shards.length);
+    }
+
+    private int shardIndexOf(int id) {
+        if (!relocated.isEmpty()) {
+            Integer shard = relocated.get(id);
+            if (shard != null) {
+                return shard;
+            }
+        }
+        return StripedIdGenerator.stripeOf(id, shards.length);
+    }
+
+    private ConcurrentTaskManager shardOf(int id) {
+        return shards[shardIndexOf(id)];
+    }
+
+    private void forgetRelocated(int id) {
+        if (!relocated.isEmpty()) {
+            relocated.remove(id);
+        }
+    }
+
+    /**
+     * Возвращает подзадачи эпика, если id — эпик и в разделы переносились подзадачи. Вызывается до удаления
+     * эпика, чтобы после удаления убрать перенесенные в него подзадачи из таблицы переносов
+     *
+     * @return подзадачи эпика; пустой список, если переносов нет или id — не эпик
+     */
+    private List<Subtask> relocatedSubtasksOf(ConcurrentTaskManager shard, int id) {
+        if (relocated.isEmpty()) {
+            return List.of();
+        }
+        return shard.getSubtasksFromEpic(id);
+    }
+
+    /**
+     * @return количество подзадач, находящихся не в разделе своей полосы id
+     */
+    public int getRelocatedCount() {
+        return relocated.size();
+    }
+
+    /**
+     * Переносит подзадачу в эпик другого раздела, сохраняя ее id. Подзадача сначала добавляется
+     * в новый раздел и только потом убирается из старого, поэтому по id она доступна все время переноса
+     *
+     * @param subtask новая версия подзадачи
+     * @param from    раздел, в котором подзадача находится сейчас
+     * @param to      раздел эпика новой версии
+     * @return id подзадачи или -1, если эпика нет
+     */
+    private int moveSubtask(Subtask subtask, int from, int to) {
+        Task epic = shards[to].getById(subtask.getEpicId());
+        if (epic == null || epic.getType() != TaskType.EPIC) {
+            System.out.println("epic == null");
+            return -1;
+        }
+        final int subtaskId = subtask.getId();
+        Task oldSubtask = shards[from].getById(subtaskId);
+        shards[to].attachSubtask(subtask);
+        if (to == StripedIdGenerator.stripeOf(subtaskId, shards.length)) {
+            relocated.remove(subtaskId);
+        } else {
+            relocated.put(subtaskId, to);
+        }
+        shards[from].detachSubtask(subtaskId);
+        events.publish(oldSubtask == null ? TaskEventType.CREATED : TaskEventType.UPDATED, oldSubtask, subtask);
+        return subtaskId;
+    }
+
+    /**
+     * Проверяет пересечение по времени во всех разделах. Вызывается под блокировкой расписания
+     */
+    private boolean isCrossOverInTime(Task newTask) {
+        for (ConcurrentTaskManager shard : shards) {
+            if (shard.hasOverlapping(newTask)) {
+                System.out.println("Задачи пересекаются по времени. Задача не создана.");
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Создает пакет задач, раскладывая его по разделам. Если в пакете есть задачи со временем начала,
+     * пакет проверяется на пересечения по всем разделам и создается под блокировкой расписания
+     *
+     * @param batch    пакет новых задач
+     * @param targets  номер раздела для каждой задачи пакета; ANY_SHARD — раздел выбирается по очереди
+     * @param rejected отметки уже отклоненных задач пакета
+     * @param creator  пакетное создание задач в разделе
+     * @return id созданных задач в порядке пакета; -1 для задач, которые не созданы
+     */
+    private <T extends Task> List<Integer> createBatch(List<T> batch, int[] targets, boolean[] rejected,
+                                                       BatchCreator<T> creator) {
+        boolean timed = false;
+        for (T task : batch) {
+            timed |= task.getStartTime() != null;
+        }
+        if (timed) {
+            scheduleLock.lock();
+        }
+        try {
+            if (timed) {
+                for (int i = 0; i < batch.size(); i++) {
+                    if (!rejected[i] && batch.get(i).getStartTime() != null && isCrossOverInTime(batch.get(i))) {
+                        rejected[i] = true;
+                    }
+                }
+                IntervalTree.rejectOverlapping(batch, rejected);
+            }
+            List<List<T>> batches = batches();
+            for (int i = 0; i < batch.size(); i++) {
+                if (!rejected[i]) {
+                    if (targets[i] == ANY_SHARD) {
+                        targets[i] = nextShard();
+                    }
+                    batches.get(targets[i]).add(batch.get(i));
+                }
+            }
+            List<List<Integer>> created = new ArrayList<>(shards.length);
+            for (int i = 0; i < shards.length; i++) {
+                created.add(batches.get(i).isEmpty() ? List.of() : creator.create(shards[i], batches.get(i)));
+            }
+            int[] positions = new int[shards.length];
+            List<Integer> ids = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                ids.add(rejected[i] ? -1 : created.get(targets[i]).get(positions[targets[i]]++));
+            }
+            return ids;
+        } finally {
+            if (timed) {
+                scheduleLock.unlock();
+            }
+        }
+    }
+
+    private <T> List<List<T>> batches() {
+        List<List<T>> batches = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            batches.add(new ArrayList<>());
+        }
+        return batches;
+    }
+
+    private <T> List<List<T>> query(Function<ConcurrentTaskManager, List<T>> query) {
+        List<List<T>> sources = new ArrayList<>(shards.length);
+        for (ConcurrentTaskManager shard : shards) {
+            sources.add(query.apply(shard));
+        }
+        return sources;
+    }
+
+    /**
+     * Возвращает запомненный список, если списки разделов с прошлого раза не менялись (разделы возвращают
+     * те же самые объекты списков), иначе собирает список заново
+     *
+     * @param view    запомненный список
+     * @param query   запрос к разделу
+     * @param combine сборка общего списка из списков разделов
+     * @return неизменяемый список
+     */
+    private <T extends Task> List<T> cached(AtomicReference<View<T>> view, Function<ConcurrentTaskManager, List<T>> query,
+                                            Function<List<List<T>>, List<T>> combine) {
+        List<List<T>> sources = query(query);
+        View<T> current = view.get();
+        if (current != null && current.isBuiltFrom(sources)) {
+            return current.result;
+        }
+        List<T> result = Collections.unmodifiableList(combine.apply(sources));
+        view.set(new View<>(sources, result));
+        return result;
+    }
+
+    /**
+     * Собирает списки всех разделов в один список, упорядоченный по id
+     */
+    private static <T extends Task> List<T> collect(List<List<T>> sources) {
+        List<T> result = new ArrayList<>();
+        for (List<T> source : sources) {
+            result.addAll(source);
+        }
+        result.sort(BY_ID);
+        return result;
+    }
+
+    /**
+     * Сливает упорядоченные списки всех разделов, выбирая следующий элемент из кучи голов списков.
+     * Стоит O(k log S), где k — количество элементов в ответе, S — количество разделов
+     *
+     * @param sources списки разделов в порядке order
+     * @param order   порядок элементов
+     * @param limit   наибольшее количество элементов в ответе
+     * @return список в порядке order
+     */
+    private static <T> List<T> merge(List<List<T>> sources, Comparator<? super T> order, int limit) {
+        int total = 0;
+        for (List<T> source : sources) {
+            total += source.size();
+        }
+        List<T> result = new ArrayList<>(Math.max(0, Math.min(limit, total)));
+        PriorityQueue<int[]> heads = new PriorityQueue<>((a, b) ->
+                order.compare(sources.get(a[0]).get(a[1]), sources.get(b[0]).get(b[1])));
+        for (int i = 0; i < sources.size(); i++) {
+            if (!sources.get(i).isEmpty()) {
+                heads.add(new int[]{i, 0});
+            }
+        }
+        while (!heads.isEmpty() && result.size() < limit) {
+            int[] head = heads.poll();
+            List<T> source = sources.get(head[0]);
+            result.add(source.get(head[1]));
+            if (++head[1] < source.size()) {
+                heads.add(head);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Объединяет битовые карты занятости всех разделов
+     */
+    private NavigableMap<LocalDate, long[]> getBusySlots(LocalDate from, LocalDate to) {
+        NavigableMap<LocalDate, long[]> busy = new TreeMap<>();
+        for (ConcurrentTaskManager shard : shards) {
+            shard.getBusySlots(from, to).forEach((day, bits) -> busy.merge(day, bits, (merged, other) -> {
+                for (int i = 0; i < merged.length; i++) {
+                    merged[i] |= other[i];
+                }
+                return merged;
+            }));
+        }
+        return busy;
+    }
+
+    private static final class View<T> {
+
+        private final List<List<T>> sources;
+
+        private final List<T> result;
+
+        private View(List<List<T>> sources, List<T> result) {
+            this.sources = sources;
+            this.result = result;
+        }
+
+        private boolean isBuiltFrom(List<List<T>> other) {
+            for (int i = 0; i < sources.size(); i++) {
+                if (sources.get(i) != other.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    @FunctionalInterface
+    private interface BatchCreator<T extends Task> {
+
+        List<Integer> create(ConcurrentTaskManager shard, List<T> batch);
+    }
+}
@@ -0,0 +1,95 @@
+package manager.memory;
+
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskType;
+
+import java.util.List;
+
+/**
+ * Снимок списков менеджера для версии данных version.
+ * Список равен null, если он еще не построен после последнего изменения задач своего типа; первое чтение
+ * после изменения копирует все задачи этого типа в новый список за O(n), а следующие чтения до очередного
+ * изменения возвращают тот же список.
+ * <p>
+ * Списки нельзя изменить, но задачи в них — объекты менеджера, а не копии. Эпик в опубликованном списке
+ * меняет статус, время и продолжительность на месте, когда меняются его подзадачи; список эпиков
+ * сбрасывается, только если изменилось время начала эпика. В {@link ConcurrentTaskManager} читатель
+ * может увидеть эпик в момент такого изменения.
+ */
+public final class TaskSnapshot {
+
+    private final long version;
+
+    private final List<Task> tasks;
+
+    private final List<Epic> epics;
+
+    private final List<Subtask> subtasks;
+
+    private final List<Task> prioritizedTasks;
+
+    TaskSnapshot(long version) {
+        this(version, null, null, null, null);
+    }
+
+    private TaskSnapshot(long version, List<Task> tasks, List<Epic> epics, List<Subtask> subtasks,
+                         List<Task> prioritizedTasks) {
+        this.version = version;
+        this.tasks = tasks;
+        this.epics = epics;
+        this.subtasks = subtasks;
+        this.prioritizedTasks = prioritizedTasks;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<Task> getTasks() {
+        return tasks;
+    }
+
+    public List<Epic> getEpics() {
+        return epics;
+    }
+
+    public List<Subtask> getSubtasks() {
+        return subtasks;
+    }
+
+    public List<Task> getPrioritizedTasks() {
+        return prioritizedTasks;
+    }
+
+    TaskSnapshot withTasks(List<Task> tasks) {
+        return new TaskSnapshot(version, tasks, epics, subtasks, prioritizedTasks);
+    }
+
+    TaskSnapshot withEpics(List<Epic> epics) {
+        return new TaskSnapshot(version, tasks, epics, subtasks, prioritizedTasks);
+    }
+
+    TaskSnapshot withSubtasks(List<Subtask> subtasks) {
+        return new TaskSnapshot(version, tasks, epics, subtasks, prioritizedTasks);
+    }
+
+    TaskSnapshot withPrioritizedTasks(List<Task> prioritizedTasks) {
+        return new TaskSnapshot(version, tasks, epics, subtasks, prioritizedTasks);
+    }
+
+    /**
+     * Создает снимок следующей версии, в котором сброшены список задач указанного типа и список приоритетов
+     *
+     * @param type тип измененных задач
+     * @return новый снимок
+     */
+    TaskSnapshot changed(TaskType type) {
+        return new TaskSnapshot(version + 1,
+                type == TaskType.TASK ? null : tasks,
+                type == TaskType.EPIC ? null : epics,
+                type == TaskType.SUBTASK ? null : subtasks,
+                null);
+    }
+}
@@ -0,0 +1,204 @@
+package manager.memory.history;
+
+import manager.HistoryManager;
+import task.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Менеджер истории, который применяет просмотры и удаления в фоновом потоке. Запись просмотра стоит
+ * одной вставки в ограниченную очередь; обновление истории выполняет поток-демон, поэтому получение
+ * задачи не ждет обслуживания истории. Если очередь заполнена, запись ждет освобождения места — просмотры
+ * не теряются, в том числе при прерывании ждущего потока: запись все равно ставится в очередь, а флаг
+ * прерывания восстанавливается. Поток запускается при первой записи и останавливается {@link #close()};
+ * после close записи применяются в вызывающем потоке.
+ * <p>
+ * {@link #flush()} ждет, пока будут применены все записи, сделанные до вызова. Чтение истории само
+ * вызывает flush, поэтому поток видит в истории свои просмотры. Если ждущий flush поток прерывают,
+ * flush возвращается раньше с восстановленным флагом прерывания. Обертываемый менеджер должен возвращать
+ * снимки истории, как {@link InMemoryHistoryManager}: списки отдаются без копирования.
+ */
+public class AsyncHistoryManager implements HistoryManager {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 4096;
+
+    private final HistoryManager historyManager;
+
+    private final BlockingQueue<Runnable> commands;
+
+    private volatile Thread consumer;
+
+    private volatile boolean closed;
+
+    public AsyncHistoryManager(HistoryManager historyManager) {
+        this(historyManager, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param historyManager обертываемый менеджер истории
+     * @param queueCapacity  наибольшее количество записей, ожидающих применения
+     */
+    public AsyncHistoryManager(HistoryManager historyManager, int queueCapacity) {
+        this.historyManager = historyManager;
+        this.commands = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task != null) {
+            submit(() -> historyManager.add(task));
+        }
+    }
+
+    @Override
+    public void remove(int id) {
+        submit(() -> historyManager.remove(id));
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        flush();
+        synchronized (historyManager) {
+            return historyManager.getHistory();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory(int offset, int limit) {
+        flush();
+        synchronized (historyManager) {
+            return historyManager.getHistory(offset, limit);
+        }
+    }
+
+    @Override
+    public List<Task> getRecentHistory(int count) {
+        flush();
+        synchronized (historyManager) {
+            return historyManager.getRecentHistory(count);
+        }
+    }
+
+    /**
+     * Ставит в очередь барьер и ждет, пока фоновый поток до него дойдет. Очередь упорядочена,
+     * поэтому к этому моменту применены все записи, поставленные до барьера
+     */
+    @Override
+    public void flush() {
+        if (consumer == null || closed) {
+            return;
+        }
+        CountDownLatch barrier = new CountDownLatch(1);
+        submit(barrier::countDown);
+        try {
+            barrier.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Применяет записи, сделанные до вызова, и останавливает фоновый поток
+     */
+    @Override
+    public void close() {
+        flush();
+        closed = true;
+        Thread thread = consumer;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        historyManager.close();
+    }
+
+    private void submit(Runnable command) {
+        if (closed) {
+            runDirectly(command);
+            return;
+        }
+        startConsumer();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                commands.put(command);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (closed) {
+            // фоновый поток мог остановиться раньше, чем запись попала в очередь
+            runDirectly(null);
+        }
+    }
+
+    /**
+     * Применяет в вызывающем потоке записи, оставшиеся в очереди, и затем command, если она указана
+     */
+    private void runDirectly(Runnable command) {
+        synchronized (historyManager) {
+            Runnable queued;
+            while ((queued = commands.poll()) != null) {
+                run(queued);
+            }
+            if (command != null) {
+                run(command);
+            }
+        }
+    }
+
+    private void startConsumer() {
+        if (consumer != null) {
+            return;
+        }
+        synchronized (this) {
+            if (consumer == null) {
+                Thread thread = new Thread(this::consume, "history-writer");
+                thread.setDaemon(true);
+                thread.start();
+                consumer = thread;
+            }
+        }
+    }
+
+    /**
+     * Забирает записи пачками и применяет каждую пачку под одним захватом монитора истории
+     */
+    private void consume() {
+        List<Runnable> batch = new ArrayList<>();
+        while (!closed) {
+            try {
+                batch.add(commands.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            commands.drainTo(batch);
+            synchronized (historyManager) {
+                for (Runnable command : batch) {
+                    run(command);
+                }
+            }
+            batch.clear();
+        }
+        runDirectly(null);
+    }
+
+    /**
+     * Применяет запись; ошибка одной записи не останавливает применение остальных и не оставляет
+     * ждущий flush без ответа
+     */
+    private static void run(Runnable command) {
+        try {
+            command.run();
+        } catch (Throwable e) {
+            System.out.println("Ошибка обновления истории: " + e);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package manager.memory.history;
+
+import manager.HistoryManager;
+import task.Task;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Потокобезопасный менеджер истории, в котором запись просмотра не ждет блокировки. Просмотр кладется
+ * в неблокирующую очередь, а переносит просмотры из очереди в обертываемую историю тот поток, которому
+ * удалось взять блокировку без ожидания; остальные потоки сразу возвращаются. Порядок истории — порядок
+ * попадания в очередь. Чтение и удаление берут блокировку и сначала переносят все накопленные просмотры,
+ * поэтому видят каждый просмотр, завершившийся до них.
+ * <p>
+ * Обертываемый менеджер должен возвращать снимки истории, как {@link InMemoryHistoryManager}:
+ * списки отдаются без копирования.
+ */
+public class ConcurrentHistoryManager implements HistoryManager {
+
+    private final HistoryManager historyManager;
+
+    private final Queue<Task> views = new ConcurrentLinkedQueue<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public ConcurrentHistoryManager(HistoryManager historyManager) {
+        this.historyManager = historyManager;
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null) {
+            return;
+        }
+        views.offer(task);
+        // поток, державший блокировку, мог закончить перенос до того, как просмотр попал в очередь,
+        // поэтому после освобождения блокировки очередь проверяется снова
+        while (!views.isEmpty() && lock.tryLock()) {
+            try {
+                drain();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void remove(int id) {
+        lock.lock();
+        try {
+            drain();
+            historyManager.remove(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        lock.lock();
+        try {
+            drain();
+            return historyManager.getHistory();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory(int offset, int limit) {
+        lock.lock();
+        try {
+            drain();
+            return historyManager.getHistory(offset, limit);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getRecentHistory(int count) {
+        lock.lock();
+        try {
+            drain();
+            return historyManager.getRecentHistory(count);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void flush() {
+        lock.lock();
+        try {
+            drain();
+            historyManager.flush();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+        historyManager.close();
+    }
+
+    /**
+     * Переносит накопленные просмотры в историю; вызывается под блокировкой
+     */
+    private void drain() {
+        Task task;
+        while ((task = views.poll()) != null) {
+            historyManager.add(task);
+        }
+    }
+}
@@ -2,106 +2,304 @@ package manager.memory.history;
 
 import manager.HistoryManager;
 import task.Task;
+import util.IntIntMap;
 
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.AbstractList;
 import java.util.List;
-import java.util.Map;
+import java.util.RandomAccess;
 
+/**
+ * История просмотров в порядке последнего просмотра. Размер истории можно ограничить: когда история
+ * переполнена, из нее вытесняется задача, которую дольше всех не просматривали. Добавление, повторный
+ * просмотр и вытеснение стоят O(log N) при любой вместимости.
+ * <p>
+ * Просмотры дописываются в конец массива; повторный просмотр и удаление не трогают ячейку, а только
+ * снимают ее бит в битовой карте живых ячеек и вычитают ее из дерева Фенвика, которое считает живые ячейки
+ * на префиксах массива. По дереву позиция в истории переводится в ячейку за O(log N), поэтому страница
+ * и последние задачи читаются за O(page + log N), пропуская мертвые ячейки. Если в отрезке страницы
+ * мертвых ячеек нет, чтение отдает представление над массивом без копирования, иначе копирует только
+ * страницу. Массив никогда не меняется на месте: живые задачи переписываются в новый массив, когда
+ * массив заполнен или мертвых ячеек стало больше живых, и только при записи — чтение массив не
+ * переписывает. Поэтому полученные списки последующие просмотры не меняют.
+ */
 public class InMemoryHistoryManager implements HistoryManager {
 
-    private final Map<Integer, Node> nodeMap = new HashMap<>();
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
 
-    private Node first;
-    private Node last;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final int NO_SLOT = -1;
+
+    private static final int SCAN_WORDS = 2;    // сколько слов битовой карты просматривается до поиска по дереву
+
+    private final IntIntMap positions = new IntIntMap();    // id задачи -> ячейка в tasks
+
+    private final int capacity;
+
+    private long evictedCount;
+
+    private Task[] tasks = new Task[INITIAL_CAPACITY];
+
+    private long[] live = new long[words(INITIAL_CAPACITY)];    // биты живых ячеек
+
+    private int[] tree = new int[INITIAL_CAPACITY + 1];    // дерево Фенвика по живым ячейкам
+
+    private int tail;    // ячейка, следующая за последней
+
+    public InMemoryHistoryManager() {
+        this(UNBOUNDED);
+    }
+
+    /**
+     * @param capacity наибольшее количество задач в истории
+     */
+    public InMemoryHistoryManager(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Вместимость истории должна быть положительной: " + capacity);
+        }
+        this.capacity = capacity;
+    }
 
     @Override
     public void add(Task task) {
         if (task == null) {
             return;
         }
-        if (nodeMap.containsKey(task.getId())) {
-            remove(task.getId());
+        final int old = positions.remove(task.getId(), NO_SLOT);
+        if (old != NO_SLOT) {
+            kill(old);
+        }
+        if (tail == tasks.length) {
+            compact(Math.max(INITIAL_CAPACITY, (positions.size() + 1) * 2));
         }
-        linkLast(task);
+        tasks[tail] = task;
+        revive(tail);
+        positions.put(task.getId(), tail++);
+        if (positions.size() > capacity) {
+            evictFirst();
+        }
+        compactIfSparse();
     }
 
     @Override
     public void remove(int id) {
-        Node node = nodeMap.remove(id);
-        if (node != null) {
-            removeNode(node);
+        final int slot = positions.remove(id, NO_SLOT);
+        if (slot != NO_SLOT) {
+            kill(slot);
+            compactIfSparse();
         }
     }
 
     @Override
     public List<Task> getHistory() {
-        return getTasks();
+        return view(0, positions.size());
+    }
+
+    @Override
+    public List<Task> getHistory(int offset, int limit) {
+        final int size = positions.size();
+        final int from = Math.min(Math.max(offset, 0), size);
+        return view(from, Math.min(Math.max(limit, 0), size - from));
+    }
+
+    @Override
+    public List<Task> getRecentHistory(int count) {
+        final int size = positions.size();
+        final int length = Math.min(Math.max(count, 0), size);
+        return view(size - length, length);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return positions.size();
     }
 
     /**
-     * Добавляет задачу в конец CustomLinkedList
-     *
-     * @param task объект задачи
+     * @return сколько задач вытеснено из переполненной истории за все время
+     */
+    public long getEvictedCount() {
+        return evictedCount;
+    }
+
+    /**
+     * Вытесняет задачу, которую дольше всех не просматривали
      */
-    private void linkLast(Task task) {
-        Node prevLast = last;
-        Node newNode = new Node(last, task, null);
-        last = newNode;
-        if (prevLast == null) {
-            first = newNode;
-        } else {
-            prevLast.next = newNode;
+    private void evictFirst() {
+        final int slot = select(1);
+        positions.remove(tasks[slot].getId(), NO_SLOT);
+        kill(slot);
+        evictedCount++;
+    }
+
+    /**
+     * @param from   номер первой задачи в истории
+     * @param length количество задач
+     * @return неизменяемый список задач части истории
+     */
+    private List<Task> view(int from, int length) {
+        if (length == 0) {
+            return new HistoryView(tasks, 0, 0);
+        }
+        final int first = select(from + 1);
+        final int last = select(from + length);
+        if (last - first + 1 == length) {
+            return new HistoryView(tasks, first, length);
         }
-        nodeMap.put(task.getId(), newNode);
+        Task[] page = new Task[length];
+        int slot = first;
+        for (int i = 0; i < length; i++) {
+            page[i] = tasks[slot];
+            if (i + 1 < length) {
+                slot = nextLive(slot + 1, from + i + 2);
+            }
+        }
+        return new HistoryView(page, 0, length);
     }
 
     /**
-     * Собирает все задачи из CustomLinkedList в обычный ArrayList
+     * Находит первую живую ячейку начиная с from. Несколько слов битовой карты просматриваются подряд,
+     * а длинная серия мертвых ячеек пропускается поиском по дереву
      *
-     * @return список задач в виде LinkedList
+     * @param from ячейка, с которой начинается поиск
+     * @param rank номер искомой задачи в истории, начиная с 1
+     * @return номер ячейки
      */
-    private LinkedList<Task> getTasks() {
-        LinkedList<Task> tasks = new LinkedList<>();
-        Node node = first;
+    private int nextLive(int from, int rank) {
+        int word = from >>> 6;
+        long bits = live[word] & (-1L << (from & 63));
+        for (int scanned = 0; scanned < SCAN_WORDS; scanned++) {
+            if (bits != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word == live.length) {
+                break;
+            }
+            bits = live[word];
+        }
+        return select(rank);
+    }
 
-        while (node != null) {
-            tasks.add(node.task);
-            node = node.next;
+    /**
+     * @param rank номер задачи в истории, начиная с 1
+     * @return ячейка, в которой лежит задача
+     */
+    private int select(int rank) {
+        int position = 0;
+        int remaining = rank;
+        for (int step = Integer.highestOneBit(tasks.length); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next <= tasks.length && tree[next] < remaining) {
+                position = next;
+                remaining -= tree[next];
+            }
         }
+        return position;
+    }
 
-        return tasks;
+    private void revive(int slot) {
+        live[slot >>> 6] |= 1L << slot;
+        for (int i = slot + 1; i < tree.length; i += i & -i) {
+            tree[i]++;
+        }
     }
 
-    private void removeNode(Node node) {
-        Node next = node.next;
-        Node prev = node.prev;
+    private void kill(int slot) {
+        live[slot >>> 6] &= ~(1L << slot);
+        for (int i = slot + 1; i < tree.length; i += i & -i) {
+            tree[i]--;
+        }
+    }
 
-        if (prev == null) {
-            first = next;
-        } else {
-            prev.next = next;
+    /**
+     * Переписывает массив, если мертвых ячеек стало больше живых. Каждая мертвая ячейка оплачивает
+     * не больше двух ячеек переписывания, поэтому в среднем запись стоит O(1)
+     */
+    private void compactIfSparse() {
+        final int size = positions.size();
+        if (tail > INITIAL_CAPACITY && tail - size > size) {
+            compact(Math.max(INITIAL_CAPACITY, size * 2));
         }
+    }
 
-        if (next == null) {
-            last = prev;
-        } else {
-            next.prev = prev;
+    /**
+     * Переписывает живые задачи в начало нового массива и строит заново битовую карту и дерево
+     *
+     * @param length длина нового массива
+     */
+    private void compact(int length) {
+        Task[] compacted = new Task[length];
+        long[] compactedLive = new long[words(length)];
+        int[] compactedTree = new int[length + 1];
+        int size = 0;
+        for (int word = 0; word < live.length; word++) {
+            for (long bits = live[word]; bits != 0; bits &= bits - 1) {
+                Task task = tasks[(word << 6) + Long.numberOfTrailingZeros(bits)];
+                compacted[size] = task;
+                compactedLive[size >>> 6] |= 1L << size;
+                compactedTree[size + 1] = 1;
+                positions.put(task.getId(), size++);
+            }
+        }
+        for (int i = 1; i <= length; i++) {
+            int parent = i + (i & -i);
+            if (parent <= length) {
+                compactedTree[parent] += compactedTree[i];
+            }
         }
+        tasks = compacted;
+        live = compactedLive;
+        tree = compactedTree;
+        tail = size;
     }
 
-    private final static class Node {
+    private static int words(int length) {
+        return (length + 63) >>> 6;
+    }
+
+    /**
+     * Неизменяемое представление отрезка массива истории
+     */
+    private static final class HistoryView extends AbstractList<Task> implements RandomAccess {
+
+        private final Task[] tasks;
+
+        private final int offset;
+
+        private final int size;
+
+        HistoryView(Task[] tasks, int offset, int size) {
+            this.tasks = tasks;
+            this.offset = offset;
+            this.size = size;
+        }
 
-        private final Task task;
+        @Override
+        public Task get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return tasks[offset + index];
+        }
 
-        private Node prev;
+        @Override
+        public int size() {
+            return size;
+        }
 
-        private Node next;
+        @Override
+        public List<Task> subList(int fromIndex, int toIndex) {
+            subListRangeCheck(fromIndex, toIndex);
+            return new HistoryView(tasks, offset + fromIndex, toIndex - fromIndex);
+        }
 
-        public Node(Node prev, Task task, Node next) {
-            this.prev = prev;
-            this.task = task;
-            this.next = next;
+        private void subListRangeCheck(int fromIndex, int toIndex) {
+            if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+                throw new IndexOutOfBoundsException("fromIndex: " + fromIndex + ", toIndex: " + toIndex
+                        + ", Size: " + size);
+            }
         }
     }
 }
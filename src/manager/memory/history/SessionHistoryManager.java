@@ -0,0 +1,204 @@
+package manager.memory.history;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Истории просмотров отдельных сессий. Сессия хранит только id задач в массиве int в порядке последнего
+ * просмотра, а сами задачи берутся из менеджера задач при чтении, поэтому удаленные задачи при чтении
+ * просто пропускаются. Память ограничена тремя способами: вместимостью истории одной сессии, общим
+ * бюджетом id на все сессии и временем простоя: сессия, к которой не обращались дольше этого времени,
+ * удаляется целиком. При превышении бюджета удаляются сессии, к которым дольше всех не обращались.
+ */
+public class SessionHistoryManager {
+
+    public static final int DEFAULT_SESSION_CAPACITY = 100;
+
+    public static final int DEFAULT_BUDGET = 1_000_000;
+
+    public static final long DEFAULT_IDLE_TIMEOUT = TimeUnit.MINUTES.toMillis(30);
+
+    private static final int INITIAL_SESSION_CAPACITY = 4;
+
+    private final Map<String, Session> sessions = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final int sessionCapacity;
+
+    private final long budget;
+
+    private final long idleTimeout;
+
+    private final LongSupplier clock;
+
+    private long usedIds;
+
+    private long evictedSessions;
+
+    public SessionHistoryManager() {
+        this(DEFAULT_SESSION_CAPACITY, DEFAULT_BUDGET, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    /**
+     * @param sessionCapacity наибольшее количество задач в истории одной сессии
+     * @param budget          наибольшее количество id во всех сессиях вместе
+     * @param idleTimeout     время простоя сессии в миллисекундах, после которого она удаляется
+     */
+    public SessionHistoryManager(int sessionCapacity, long budget, long idleTimeout) {
+        this(sessionCapacity, budget, idleTimeout, System::currentTimeMillis);
+    }
+
+    /**
+     * @param sessionCapacity наибольшее количество задач в истории одной сессии
+     * @param budget          наибольшее количество id во всех сессиях вместе
+     * @param idleTimeout     время простоя сессии в миллисекундах, после которого она удаляется
+     * @param clock           источник текущего времени в миллисекундах
+     */
+    public SessionHistoryManager(int sessionCapacity, long budget, long idleTimeout, LongSupplier clock) {
+        if (sessionCapacity <= 0 || budget < sessionCapacity || idleTimeout <= 0) {
+            throw new IllegalArgumentException("Неверные ограничения истории сессий: вместимость " + sessionCapacity
+                    + ", бюджет " + budget + ", время простоя " + idleTimeout);
+        }
+        this.sessionCapacity = sessionCapacity;
+        this.budget = budget;
+        this.idleTimeout = idleTimeout;
+        this.clock = clock;
+    }
+
+    /**
+     * Добавляет просмотр задачи в историю сессии; сессия создается при первом просмотре
+     *
+     * @param session id сессии
+     * @param id      id задачи
+     */
+    public synchronized void add(String session, int id) {
+        final long now = clock.getAsLong();
+        evictIdle(now);
+        Session history = sessions.computeIfAbsent(session, key -> new Session());
+        history.lastAccess = now;
+        usedIds += history.add(id, sessionCapacity);
+        evictOverBudget(history);
+    }
+
+    /**
+     * @param session id сессии
+     * @return id задач в порядке просмотра; пустой массив, если сессии нет
+     */
+    public synchronized int[] getHistory(String session) {
+        final long now = clock.getAsLong();
+        evictIdle(now);
+        Session history = sessions.get(session);
+        if (history == null) {
+            return new int[0];
+        }
+        history.lastAccess = now;
+        return Arrays.copyOf(history.ids, history.size);
+    }
+
+    public synchronized void removeSession(String session) {
+        Session history = sessions.remove(session);
+        if (history != null) {
+            usedIds -= history.size;
+        }
+    }
+
+    public synchronized int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * @return количество id во всех сессиях
+     */
+    public synchronized long getUsedIds() {
+        return usedIds;
+    }
+
+    /**
+     * @return сколько сессий удалено по времени простоя или из-за бюджета за все время
+     */
+    public synchronized long getEvictedSessions() {
+        return evictedSessions;
+    }
+
+    /**
+     * Удаляет сессии, простаивающие дольше допустимого. Сессии лежат в порядке обращения,
+     * поэтому просмотр останавливается на первой активной сессии
+     */
+    private void evictIdle(long now) {
+        Iterator<Session> iterator = sessions.values().iterator();
+        while (iterator.hasNext()) {
+            Session history = iterator.next();
+            if (now - history.lastAccess <= idleTimeout) {
+                return;
+            }
+            evict(iterator, history);
+        }
+    }
+
+    /**
+     * Удаляет сессии, к которым дольше всех не обращались, пока id не уместятся в бюджет.
+     * Текущая сессия последняя в порядке обращения и сама по себе в бюджет помещается
+     */
+    private void evictOverBudget(Session current) {
+        Iterator<Session> iterator = sessions.values().iterator();
+        while (usedIds > budget && iterator.hasNext()) {
+            Session history = iterator.next();
+            if (history != current) {
+                evict(iterator, history);
+            }
+        }
+    }
+
+    private void evict(Iterator<Session> iterator, Session history) {
+        iterator.remove();
+        usedIds -= history.size;
+        evictedSessions++;
+    }
+
+    /**
+     * История одной сессии: id задач в порядке последнего просмотра. История короткая, поэтому повторный
+     * просмотр ищет и сдвигает id линейно — это дешевле хеш-индекса и не тратит память
+     */
+    private static final class Session {
+
+        private int[] ids = new int[INITIAL_SESSION_CAPACITY];
+
+        private int size;
+
+        private long lastAccess;
+
+        /**
+         * @return на сколько изменилось количество id в сессии
+         */
+        int add(int id, int capacity) {
+            int index = indexOf(id);
+            if (index >= 0) {
+                System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+                ids[size - 1] = id;
+                return 0;
+            }
+            if (size == capacity) {
+                System.arraycopy(ids, 1, ids, 0, size - 1);
+                ids[size - 1] = id;
+                return 0;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, Math.min(capacity, ids.length * 2));
+            }
+            ids[size++] = id;
+            return 1;
+        }
+
+        private int indexOf(int id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
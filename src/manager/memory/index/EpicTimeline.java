@@ -0,0 +1,85 @@
+package manager.memory.index;
+
+import task.Subtask;
+import util.IntObjectMap;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.TreeMap;
+
+/**
+ * Время начала, окончания и суммарная продолжительность подзадач одного эпика.
+ * Времена начала и окончания хранятся в упорядоченных мультимножествах, поэтому добавление
+ * и удаление подзадачи стоят O(log k). Подзадачи без времени начала не учитываются.
+ */
+public class EpicTimeline {
+
+    private final IntObjectMap<Span> spans = new IntObjectMap<>();
+
+    private final TreeMap<LocalDateTime, Integer> startTimes = new TreeMap<>();
+
+    private final TreeMap<LocalDateTime, Integer> endTimes = new TreeMap<>();
+
+    private Duration duration = Duration.ZERO;
+
+    public void add(Subtask subtask) {
+        remove(subtask.getId());
+        if (subtask.getStartTime() == null) {
+            return;
+        }
+        Duration subtaskDuration = subtask.getDuration() == null ? Duration.ZERO : subtask.getDuration();
+        Span span = new Span(subtask.getStartTime(), subtask.getStartTime().plus(subtaskDuration), subtaskDuration);
+        spans.put(subtask.getId(), span);
+        startTimes.merge(span.start, 1, Integer::sum);
+        endTimes.merge(span.end, 1, Integer::sum);
+        duration = duration.plus(span.duration);
+    }
+
+    public void remove(int subtaskId) {
+        Span span = spans.remove(subtaskId);
+        if (span == null) {
+            return;
+        }
+        decrement(startTimes, span.start);
+        decrement(endTimes, span.end);
+        duration = duration.minus(span.duration);
+    }
+
+    public void clear() {
+        spans.clear();
+        startTimes.clear();
+        endTimes.clear();
+        duration = Duration.ZERO;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTimes.isEmpty() ? null : startTimes.firstKey();
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTimes.isEmpty() ? null : endTimes.lastKey();
+    }
+
+    public Duration getDuration() {
+        return spans.isEmpty() ? null : duration;
+    }
+
+    private static void decrement(TreeMap<LocalDateTime, Integer> times, LocalDateTime time) {
+        times.computeIfPresent(time, (key, count) -> count == 1 ? null : count - 1);
+    }
+
+    private static final class Span {
+
+        private final LocalDateTime start;
+
+        private final LocalDateTime end;
+
+        private final Duration duration;
+
+        private Span(LocalDateTime start, LocalDateTime end, Duration duration) {
+            this.start = start;
+            this.end = end;
+            this.duration = duration;
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package manager.memory.index;
+
+import task.Task;
+import util.IntObjectMap;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Свободные промежутки в расписании задач. Занятое время хранится как объединение интервалов задач —
+ * непересекающиеся блоки, упорядоченные по началу. Промежутки между соседними блоками лежат в дереве AVL,
+ * дополненном наибольшей длиной промежутка в поддереве, поэтому самый ранний промежуток нужной длины
+ * находится за O(log N). Добавление задачи стоит O(log N); при удалении задачи ее блок собирается заново
+ * из интервальных деревьев расписания, поэтому удаление стоит O((k + 1) log N), где k — количество задач в блоке.
+ * Интервал задачи запоминается по id при добавлении, поэтому удаление не зависит от того, менялось ли
+ * время объекта задачи после добавления.
+ */
+public class GapIndex {
+
+    private static final Duration MIN_DURATION = Duration.ofNanos(1);
+
+    private final IntervalTree[] schedules;
+
+    private final TreeMap<LocalDateTime, LocalDateTime> blocks = new TreeMap<>();
+
+    private final IntObjectMap<LocalDateTime[]> intervals = new IntObjectMap<>();
+
+    private Node root;
+
+    /**
+     * @param schedules интервальные деревья, из которых собирается занятое время
+     */
+    public GapIndex(IntervalTree... schedules) {
+        this.schedules = schedules;
+    }
+
+    public void add(Task task) {
+        if (task == null || task.getStartTime() == null) {
+            return;
+        }
+        LocalDateTime[] interval = {IntervalTree.effectiveStart(task), IntervalTree.effectiveEnd(task)};
+        intervals.put(task.getId(), interval);
+        addBlock(interval[0], interval[1]);
+    }
+
+    /**
+     * Освобождает время задачи. Задача должна быть уже удалена из интервальных деревьев расписания
+     *
+     * @param id id задачи
+     */
+    public void remove(int id) {
+        LocalDateTime[] interval = intervals.remove(id);
+        if (interval == null) {
+            return;
+        }
+        Map.Entry<LocalDateTime, LocalDateTime> block = blocks.floorEntry(interval[0]);
+        if (block != null && block.getValue().isAfter(interval[0])) {
+            reassemble(block);
+        }
+    }
+
+    /**
+     * Удаляет блок и собирает его заново из задач, оставшихся в интервальных деревьях расписания
+     */
+    private void reassemble(Map.Entry<LocalDateTime, LocalDateTime> block) {
+        Map.Entry<LocalDateTime, LocalDateTime> prev = blocks.lowerEntry(block.getKey());
+        Map.Entry<LocalDateTime, LocalDateTime> next = blocks.higherEntry(block.getKey());
+        if (prev != null) {
+            root = delete(root, prev.getValue());
+        }
+        if (next != null) {
+            root = delete(root, block.getValue());
+        }
+        blocks.remove(block.getKey());
+        link(prev, next);
+        for (IntervalTree schedule : schedules) {
+            for (Task remaining : schedule.findOverlapping(block.getKey(), block.getValue())) {
+                LocalDateTime[] interval = intervals.get(remaining.getId());
+                if (interval != null) {
+                    addBlock(interval[0], interval[1]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Освобождает время нескольких задач. Каждый затронутый блок собирается заново один раз, поэтому
+     * удаление стоит O((k + m) log N), где k — количество удаляемых задач, m — количество задач,
+     * оставшихся в затронутых блоках. Задачи должны быть уже удалены из интервальных деревьев расписания
+     *
+     * @param removed удаляемые задачи
+     */
+    public void removeAll(Collection<? extends Task> removed) {
+        TreeMap<LocalDateTime, LocalDateTime> affected = new TreeMap<>();
+        for (Task task : removed) {
+            LocalDateTime[] interval = intervals.remove(task.getId());
+            if (interval == null) {
+                continue;
+            }
+            Map.Entry<LocalDateTime, LocalDateTime> block = blocks.floorEntry(interval[0]);
+            if (block != null && block.getValue().isAfter(interval[0])) {
+                affected.put(block.getKey(), block.getValue());
+            }
+        }
+        for (Map.Entry<LocalDateTime, LocalDateTime> block : affected.entrySet()) {
+            reassemble(block);
+        }
+    }
+
+    public void clear() {
+        blocks.clear();
+        intervals.clear();
+        root = null;
+    }
+
+    /**
+     * Находит самое раннее время начала, с которого свободен промежуток длиной duration,
+     * целиком лежащий в интервале [from, to). Время начала кратно минуте
+     *
+     * @param duration продолжительность
+     * @param from     начало интервала поиска
+     * @param to       конец интервала поиска (не включается)
+     * @return время начала свободного промежутка или null, если его нет
+     */
+    public LocalDateTime findFreeSlot(Duration duration, LocalDateTime from, LocalDateTime to) {
+        Duration length = duration.isZero() || duration.isNegative() ? MIN_DURATION : duration;
+        LocalDateTime candidate = ceilToMinute(from);
+        while (candidate.isBefore(to)) {
+            Map.Entry<LocalDateTime, LocalDateTime> block = blocks.floorEntry(candidate);
+            if (block != null && block.getValue().isAfter(candidate)) {
+                candidate = ceilToMinute(block.getValue());
+                continue;
+            }
+            Map.Entry<LocalDateTime, LocalDateTime> next = blocks.higherEntry(candidate);
+            if (next == null || !candidate.plus(length).isAfter(next.getKey())) {
+                return fits(candidate, length, to);
+            }
+            Node gap = firstFit(root, candidate, length);
+            candidate = ceilToMinute(gap == null ? blocks.lastEntry().getValue() : gap.start);
+        }
+        return null;
+    }
+
+    private static LocalDateTime fits(LocalDateTime start, Duration length, LocalDateTime to) {
+        return start.plus(length).isAfter(to) ? null : start;
+    }
+
+    private static LocalDateTime ceilToMinute(LocalDateTime time) {
+        LocalDateTime truncated = time.truncatedTo(ChronoUnit.MINUTES);
+        return truncated.equals(time) ? time : truncated.plusMinutes(1);
+    }
+
+    /**
+     * Добавляет занятый интервал, объединяя его с пересекающимися и соприкасающимися блоками
+     */
+    private void addBlock(LocalDateTime start, LocalDateTime end) {
+        LocalDateTime mergedStart = start;
+        LocalDateTime mergedEnd = end;
+        Map.Entry<LocalDateTime, LocalDateTime> floor = blocks.floorEntry(start);
+        if (floor != null && !floor.getValue().isBefore(start)) {
+            mergedStart = floor.getKey();
+        }
+        NavigableMap<LocalDateTime, LocalDateTime> merged = blocks.subMap(mergedStart, true, end, true);
+        for (LocalDateTime blockEnd : merged.values()) {
+            root = delete(root, blockEnd);
+            if (blockEnd.isAfter(mergedEnd)) {
+                mergedEnd = blockEnd;
+            }
+        }
+        merged.clear();
+        Map.Entry<LocalDateTime, LocalDateTime> prev = blocks.lowerEntry(mergedStart);
+        if (prev != null) {
+            root = delete(root, prev.getValue());
+        }
+        blocks.put(mergedStart, mergedEnd);
+        Map.Entry<LocalDateTime, LocalDateTime> block = blocks.floorEntry(mergedStart);
+        link(prev, block);
+        link(block, blocks.higherEntry(mergedStart));
+    }
+
+    private void link(Map.Entry<LocalDateTime, LocalDateTime> before, Map.Entry<LocalDateTime, LocalDateTime> after) {
+        if (before != null && after != null) {
+            root = insert(root, new Node(before.getValue(), after.getKey()));
+        }
+    }
+
+    /**
+     * Ищет самый ранний промежуток длиной не меньше length, начинающийся позже after
+     */
+    private static Node firstFit(Node node, LocalDateTime after, Duration length) {
+        if (node == null || node.maxLength.compareTo(length) < 0) {
+            return null;
+        }
+        if (node.start.isAfter(after)) {
+            Node left = firstFit(node.left, after, length);
+            if (left != null) {
+                return left;
+            }
+            if (node.length.compareTo(length) >= 0) {
+                return node;
+            }
+        }
+        return firstFit(node.right, after, length);
+    }
+
+    private static Node insert(Node node, Node newNode) {
+        if (node == null) {
+            return newNode;
+        }
+        int cmp = newNode.start.compareTo(node.start);
+        if (cmp < 0) {
+            node.left = insert(node.left, newNode);
+        } else if (cmp > 0) {
+            node.right = insert(node.right, newNode);
+        } else {
+            newNode.left = node.left;
+            newNode.right = node.right;
+            node = newNode;
+        }
+        return balance(node);
+    }
+
+    private static Node delete(Node node, LocalDateTime start) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = start.compareTo(node.start);
+        if (cmp < 0) {
+            node.left = delete(node.left, start);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, start);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node min = node.right;
+            while (min.left != null) {
+                min = min.left;
+            }
+            min.right = deleteMin(node.right);
+            min.left = node.left;
+            node = min;
+        }
+        return balance(node);
+    }
+
+    private static Node deleteMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteMin(node.left);
+        return balance(node);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void update(Node node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        node.maxLength = node.length;
+        if (node.left != null && node.left.maxLength.compareTo(node.maxLength) > 0) {
+            node.maxLength = node.left.maxLength;
+        }
+        if (node.right != null && node.right.maxLength.compareTo(node.maxLength) > 0) {
+            node.maxLength = node.right.maxLength;
+        }
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static final class Node {
+
+        private final LocalDateTime start;
+
+        private final LocalDateTime end;
+
+        private final Duration length;
+
+        private Duration maxLength;
+
+        private int height = 1;
+
+        private Node left;
+
+        private Node right;
+
+        private Node(LocalDateTime start, LocalDateTime end) {
+            this.start = start;
+            this.end = end;
+            this.length = Duration.between(start, end);
+            this.maxLength = length;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package manager.memory.index;
+
+import task.Task;
+import util.IntObjectMap;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Интервальное дерево (AVL, дополненное максимальным временем окончания в поддереве)
+ * по времени выполнения задач. Задачи без времени начала в дерево не попадают.
+ * Интервал задачи полуоткрытый: [startTime, endTime). Задача нулевой продолжительности
+ * занимает точку startTime, поэтому пересекается с задачами, начинающимися в то же время.
+ * Время сравнивается с точностью до минуты — с такой точностью задачи сохраняются в файл и передаются по HTTP.
+ */
+public class IntervalTree {
+
+    private final IntObjectMap<LocalDateTime> startTimes = new IntObjectMap<>();
+
+    private Node root;
+
+    public void add(Task task) {
+        if (task == null || task.getStartTime() == null) {
+            return;
+        }
+        remove(task.getId());
+        LocalDateTime start = effectiveStart(task);
+        root = insert(root, new Node(task, start, effectiveEnd(task)));
+        startTimes.put(task.getId(), start);
+    }
+
+    public void remove(int id) {
+        LocalDateTime start = startTimes.remove(id);
+        if (start != null) {
+            root = delete(root, start, id);
+        }
+    }
+
+    public void clear() {
+        root = null;
+        startTimes.clear();
+    }
+
+    public int size() {
+        return startTimes.size();
+    }
+
+    public boolean isEmpty() {
+        return startTimes.isEmpty();
+    }
+
+    /**
+     * Проверяет, пересекается ли задача по времени с какой-либо другой задачей из дерева
+     *
+     * @param task объект задачи
+     * @return true, если найдена задача с другим id, пересекающаяся по времени
+     */
+    public boolean hasOverlapping(Task task) {
+        if (task == null || task.getStartTime() == null) {
+            return false;
+        }
+        return findFirst(root, effectiveStart(task), effectiveEnd(task), task.getId()) != null;
+    }
+
+    /**
+     * Возвращает задачи, пересекающиеся с интервалом [start, end), в порядке времени начала
+     *
+     * @param start начало интервала
+     * @param end   конец интервала (не включается)
+     * @return список задач
+     */
+    public List<Task> findOverlapping(LocalDateTime start, LocalDateTime end) {
+        List<Task> result = new ArrayList<>();
+        collect(root, start, end, result);
+        return result;
+    }
+
+    /**
+     * Отмечает задачи пакета, пересекающиеся по времени с другими задачами того же пакета.
+     * Задачи сортируются по времени начала и проходятся один раз с запоминанием наибольшего времени окончания,
+     * поэтому проверка стоит O(k log k). Из пересекающихся задач остается та, что начинается раньше
+     * (при равном начале — стоящая в пакете раньше)
+     *
+     * @param batch    пакет задач
+     * @param rejected отметки задач пакета, уже отклоненных и не участвующих в проверке; сюда же записываются
+     *                 отметки найденных пересечений
+     */
+    public static void rejectOverlapping(List<? extends Task> batch, boolean[] rejected) {
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (!rejected[i] && batch.get(i).getStartTime() != null) {
+                order.add(i);
+            }
+        }
+        order.sort(Comparator.comparing(i -> effectiveStart(batch.get(i))));
+        LocalDateTime maxEnd = null;
+        for (int i : order) {
+            Task task = batch.get(i);
+            if (maxEnd != null && effectiveStart(task).isBefore(maxEnd)) {
+                rejected[i] = true;
+                continue;
+            }
+            LocalDateTime end = effectiveEnd(task);
+            if (maxEnd == null || end.isAfter(maxEnd)) {
+                maxEnd = end;
+            }
+        }
+    }
+
+    static LocalDateTime effectiveStart(Task task) {
+        return task.getStartTime().truncatedTo(ChronoUnit.MINUTES);
+    }
+
+    static LocalDateTime effectiveEnd(Task task) {
+        LocalDateTime start = effectiveStart(task);
+        Duration duration = task.getDuration();
+        if (duration == null || duration.isZero() || duration.isNegative()) {
+            return start.plusNanos(1);
+        }
+        return start.plus(duration);
+    }
+
+    private static Node findFirst(Node node, LocalDateTime start, LocalDateTime end, int excludeId) {
+        if (node == null || !node.maxEnd.isAfter(start)) {
+            return null;
+        }
+        Node found = findFirst(node.left, start, end, excludeId);
+        if (found != null) {
+            return found;
+        }
+        if (!node.start.isBefore(end)) {
+            return null;
+        }
+        if (node.end.isAfter(start) && node.id != excludeId) {
+            return node;
+        }
+        return findFirst(node.right, start, end, excludeId);
+    }
+
+    private static void collect(Node node, LocalDateTime start, LocalDateTime end, List<Task> result) {
+        if (node == null || !node.maxEnd.isAfter(start)) {
+            return;
+        }
+        collect(node.left, start, end, result);
+        if (!node.start.isBefore(end)) {
+            return;
+        }
+        if (node.end.isAfter(start)) {
+            result.add(node.task);
+        }
+        collect(node.right, start, end, result);
+    }
+
+    private static int compare(LocalDateTime start, int id, Node node) {
+        int result = start.compareTo(node.start);
+        return result != 0 ? result : Integer.compare(id, node.id);
+    }
+
+    private static Node insert(Node node, Node newNode) {
+        if (node == null) {
+            return newNode;
+        }
+        if (compare(newNode.start, newNode.id, node) < 0) {
+            node.left = insert(node.left, newNode);
+        } else {
+            node.right = insert(node.right, newNode);
+        }
+        return balance(node);
+    }
+
+    private static Node delete(Node node, LocalDateTime start, int id) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, id, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, start, id);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, start, id);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node min = node.right;
+            while (min.left != null) {
+                min = min.left;
+            }
+            min.right = deleteMin(node.right);
+            min.left = node.left;
+            node = min;
+        }
+        return balance(node);
+    }
+
+    private static Node deleteMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteMin(node.left);
+        return balance(node);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void update(Node node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        LocalDateTime maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static final class Node {
+
+        private final Task task;
+
+        private final int id;
+
+        private final LocalDateTime start;
+
+        private final LocalDateTime end;
+
+        private LocalDateTime maxEnd;
+
+        private int height = 1;
+
+        private Node left;
+
+        private Node right;
+
+        private Node(Task task, LocalDateTime start, LocalDateTime end) {
+            this.task = task;
+            this.id = task.getId();
+            this.start = start;
+            this.end = end;
+            this.maxEnd = end;
+        }
+    }
+}
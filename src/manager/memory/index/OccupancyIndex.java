@@ -0,0 +1,226 @@
+package manager.memory.index;
+
+import task.Task;
+import util.IntObjectMap;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Занятость расписания по 15-минутным слотам. Для каждого дня с задачами хранится битовая карта
+ * из 96 слотов, упакованная в два long, и счетчики задач в каждом слоте: слот занят, пока его счетчик
+ * больше нуля, поэтому пересекающиеся задачи удаляются корректно. Загрузка за период и почасовая карта
+ * считаются подсчетом единичных битов (Long.bitCount) по дням периода, без перебора задач.
+ */
+public class OccupancyIndex {
+
+    public static final int SLOT_MINUTES = 15;
+
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+
+    /**
+     * Наибольшее количество дней в почасовой карте занятости: карта строится для каждого дня периода,
+     * поэтому без ограничения длинный период занимает память без предела
+     */
+    public static final int MAX_HEATMAP_DAYS = 366;
+
+    private static final int SLOTS_PER_HOUR = 60 / SLOT_MINUTES;
+
+    private final TreeMap<LocalDate, Day> days = new TreeMap<>();
+
+    private final IntObjectMap<LocalDateTime[]> intervals = new IntObjectMap<>();
+
+    public void add(Task task) {
+        if (task == null || task.getStartTime() == null) {
+            return;
+        }
+        remove(task.getId());
+        LocalDateTime[] interval = {IntervalTree.effectiveStart(task), IntervalTree.effectiveEnd(task)};
+        intervals.put(task.getId(), interval);
+        mark(interval[0], interval[1], 1);
+    }
+
+    public void remove(int id) {
+        LocalDateTime[] interval = intervals.remove(id);
+        if (interval != null) {
+            mark(interval[0], interval[1], -1);
+        }
+    }
+
+    public void clear() {
+        days.clear();
+        intervals.clear();
+    }
+
+    /**
+     * Считает долю занятых слотов в интервале [from, to). Слоты, попадающие в интервал частично, учитываются
+     *
+     * @param from начало интервала
+     * @param to   конец интервала (не включается)
+     * @return доля занятых слотов от 0 до 1
+     */
+    public double getUtilization(LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            return 0;
+        }
+        return utilization(getBusySlots(from.toLocalDate(), to.minusNanos(1).toLocalDate()), from, to);
+    }
+
+    /**
+     * Строит почасовую карту занятости за дни с from по to включительно
+     *
+     * @param from первый день
+     * @param to   последний день
+     * @return для каждого дня — 24 числа от 0 до 4, количество занятых 15-минутных слотов в каждом часе
+     * @throws IllegalArgumentException если период длиннее {@link #MAX_HEATMAP_DAYS} дней
+     */
+    public Map<LocalDate, int[]> getHeatmap(LocalDate from, LocalDate to) {
+        return heatmap(getBusySlots(from, to), from, to);
+    }
+
+    /**
+     * Возвращает копии битовых карт занятых слотов за дни с from по to включительно.
+     * Дни без задач в ответ не попадают
+     *
+     * @param from первый день
+     * @param to   последний день
+     * @return битовые карты по дням; бит слота i — бит (i % 64) в элементе i / 64
+     */
+    public NavigableMap<LocalDate, long[]> getBusySlots(LocalDate from, LocalDate to) {
+        NavigableMap<LocalDate, long[]> busy = new TreeMap<>();
+        if (from.isAfter(to)) {
+            return busy;
+        }
+        for (Map.Entry<LocalDate, Day> entry : days.subMap(from, true, to, true).entrySet()) {
+            busy.put(entry.getKey(), entry.getValue().bits.clone());
+        }
+        return busy;
+    }
+
+    /**
+     * Считает долю занятых слотов в интервале [from, to) по битовым картам занятости
+     *
+     * @param busy битовые карты занятых слотов по дням
+     * @param from начало интервала
+     * @param to   конец интервала (не включается)
+     * @return доля занятых слотов от 0 до 1
+     */
+    public static double utilization(NavigableMap<LocalDate, long[]> busy, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            return 0;
+        }
+        LocalDate fromDay = from.toLocalDate();
+        LocalDate toDay = to.minusNanos(1).toLocalDate();
+        int fromSlot = slotOf(from);
+        int toSlot = slotOf(to.minusNanos(1)) + 1;
+        long total = ChronoUnit.DAYS.between(fromDay, toDay) * SLOTS_PER_DAY + toSlot - fromSlot;
+        long busySlots = 0;
+        for (Map.Entry<LocalDate, long[]> entry : busy.subMap(fromDay, true, toDay, true).entrySet()) {
+            int first = entry.getKey().equals(fromDay) ? fromSlot : 0;
+            int last = entry.getKey().equals(toDay) ? toSlot : SLOTS_PER_DAY;
+            busySlots += countBusy(entry.getValue(), first, last);
+        }
+        return (double) busySlots / total;
+    }
+
+    /**
+     * Строит почасовую карту занятости по битовым картам занятости
+     *
+     * @param busy битовые карты занятых слотов по дням
+     * @param from первый день
+     * @param to   последний день
+     * @return для каждого дня — 24 числа от 0 до 4
+     * @throws IllegalArgumentException если период длиннее {@link #MAX_HEATMAP_DAYS} дней
+     */
+    public static Map<LocalDate, int[]> heatmap(Map<LocalDate, long[]> busy, LocalDate from, LocalDate to) {
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_HEATMAP_DAYS) {
+            throw new IllegalArgumentException("Карта занятости строится не больше чем за " + MAX_HEATMAP_DAYS
+                    + " дней: " + from + " - " + to);
+        }
+        Map<LocalDate, int[]> heatmap = new TreeMap<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            long[] bits = busy.get(day);
+            int[] hours = new int[24];
+            if (bits != null) {
+                for (int hour = 0; hour < hours.length; hour++) {
+                    hours[hour] = countBusy(bits, hour * SLOTS_PER_HOUR, (hour + 1) * SLOTS_PER_HOUR);
+                }
+            }
+            heatmap.put(day, hours);
+        }
+        return heatmap;
+    }
+
+    /**
+     * Считает занятые слоты в диапазоне [from, to)
+     */
+    private static int countBusy(long[] bits, int from, int to) {
+        int busy = 0;
+        if (from >= to) {
+            return busy;
+        }
+        for (int word = from >>> 6; word <= (to - 1) >>> 6; word++) {
+            long mask = -1L;
+            if (word == from >>> 6) {
+                mask &= -1L << (from & 63);
+            }
+            if (word == (to - 1) >>> 6) {
+                mask &= -1L >>> (63 - ((to - 1) & 63));
+            }
+            busy += Long.bitCount(bits[word] & mask);
+        }
+        return busy;
+    }
+
+    private static int slotOf(LocalDateTime time) {
+        return (time.getHour() * 60 + time.getMinute()) / SLOT_MINUTES;
+    }
+
+    /**
+     * Изменяет на delta счетчики всех слотов, которые пересекает интервал [start, end)
+     */
+    private void mark(LocalDateTime start, LocalDateTime end, int delta) {
+        LocalDateTime last = end.minusNanos(1);
+        LocalDate lastDay = last.toLocalDate();
+        for (LocalDate day = start.toLocalDate(); !day.isAfter(lastDay); day = day.plusDays(1)) {
+            int first = day.equals(start.toLocalDate()) ? slotOf(start) : 0;
+            int to = day.equals(lastDay) ? slotOf(last) + 1 : SLOTS_PER_DAY;
+            Day occupancy = days.computeIfAbsent(day, key -> new Day());
+            for (int slot = first; slot < to; slot++) {
+                occupancy.change(slot, delta);
+            }
+            if (occupancy.isEmpty()) {
+                days.remove(day);
+            }
+        }
+    }
+
+    private static final class Day {
+
+        private final long[] bits = new long[(SLOTS_PER_DAY + 63) / 64];
+
+        private final int[] counts = new int[SLOTS_PER_DAY];
+
+        private void change(int slot, int delta) {
+            counts[slot] += delta;
+            if (counts[slot] > 0) {
+                bits[slot >>> 6] |= 1L << slot;
+            } else {
+                bits[slot >>> 6] &= ~(1L << slot);
+            }
+        }
+
+        private boolean isEmpty() {
+            for (long word : bits) {
+                if (word != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
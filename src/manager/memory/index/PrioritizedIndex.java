@@ -0,0 +1,168 @@
+package manager.memory.index;
+
+import task.Task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.TreeSet;
+
+/**
+ * Задачи, подзадачи и эпики, упорядоченные по времени начала (задачи без времени — в конце).
+ * Каждый тип хранится в своем отсортированном множестве, поэтому удаление всех задач одного типа
+ * не затрагивает остальные, а общий порядок собирается слиянием при обходе.
+ */
+public class PrioritizedIndex implements Iterable<Task> {
+
+    public static final Comparator<Task> COMPARATOR = Comparator.comparing(Task::getStartTime,
+            Comparator.nullsLast(Comparator.naturalOrder())).thenComparing(Task::getId);
+
+    private final TreeSet<Task> tasks = new TreeSet<>(COMPARATOR);
+    private final TreeSet<Task> subtasks = new TreeSet<>(COMPARATOR);
+    private final TreeSet<Task> epics = new TreeSet<>(COMPARATOR);
+
+    public void add(Task task) {
+        setOf(task).add(task);
+    }
+
+    public void remove(Task task) {
+        if (task != null) {
+            setOf(task).remove(task);
+        }
+    }
+
+    public void clearTasks() {
+        tasks.clear();
+    }
+
+    public void clearSubtasks() {
+        subtasks.clear();
+    }
+
+    public void clearEpics() {
+        epics.clear();
+    }
+
+    public int size() {
+        return tasks.size() + subtasks.size() + epics.size();
+    }
+
+    /**
+     * Возвращает задачи всех типов, время начала которых попадает в интервал [from, to), в порядке приоритета.
+     * Стоит O(log N + k), где k — количество найденных задач
+     *
+     * @param from начало интервала
+     * @param to   конец интервала (не включается)
+     * @return список задач
+     */
+    public List<Task> between(LocalDateTime from, LocalDateTime to) {
+        Task fromKey = key(from, Integer.MIN_VALUE);
+        Task toKey = key(to, Integer.MIN_VALUE);
+        List<Task> result = new ArrayList<>();
+        if (COMPARATOR.compare(fromKey, toKey) >= 0) {
+            return result;
+        }
+        new MergingIterator(List.of(tasks.subSet(fromKey, toKey).iterator(),
+                subtasks.subSet(fromKey, toKey).iterator(), epics.subSet(fromKey, toKey).iterator())).forEachRemaining(result::add);
+        return result;
+    }
+
+    /**
+     * Возвращает страницу задач, следующих в порядке приоритета за задачей after.
+     * Стоит O(log N + limit)
+     *
+     * @param after задача, на которой закончилась предыдущая страница, или null для первой страницы
+     * @param limit наибольшее количество задач на странице
+     * @return список задач
+     */
+    public List<Task> after(Task after, int limit) {
+        List<Task> result = new ArrayList<>(Math.min(limit, size()));
+        if (limit <= 0) {
+            return result;
+        }
+        Iterator<Task> iterator = after == null ? iterator() : new MergingIterator(List.of(
+                tasks.tailSet(after, false).iterator(), subtasks.tailSet(after, false).iterator(),
+                epics.tailSet(after, false).iterator()));
+        while (iterator.hasNext() && result.size() < limit) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+    /**
+     * Обходит задачи всех типов в общем порядке, сливая отсортированные множества на лету
+     *
+     * @return итератор по задачам в порядке приоритета
+     */
+    @Override
+    public Iterator<Task> iterator() {
+        return new MergingIterator(List.of(tasks.iterator(), subtasks.iterator(), epics.iterator()));
+    }
+
+    private TreeSet<Task> setOf(Task task) {
+        switch (task.getType()) {
+            case SUBTASK:
+                return subtasks;
+            case EPIC:
+                return epics;
+            default:
+                return tasks;
+        }
+    }
+
+    private static Task key(LocalDateTime startTime, int id) {
+        Task key = new Task(null, null, null);
+        key.setStartTime(startTime);
+        key.setId(id);
+        return key;
+    }
+
+    private static final class MergingIterator implements Iterator<Task> {
+
+        private final List<Iterator<Task>> sources;
+
+        private final Task[] heads;
+
+        private MergingIterator(List<Iterator<Task>> sources) {
+            this.sources = sources;
+            this.heads = new Task[sources.size()];
+            for (int i = 0; i < heads.length; i++) {
+                advance(i);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            for (Task head : heads) {
+                if (head != null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Task next() {
+            int min = -1;
+            for (int i = 0; i < heads.length; i++) {
+                if (heads[i] != null && (min < 0 || COMPARATOR.compare(heads[i], heads[min]) < 0)) {
+                    min = i;
+                }
+            }
+            if (min < 0) {
+                throw new NoSuchElementException();
+            }
+            Task next = heads[min];
+            advance(min);
+            return next;
+        }
+
+        private void advance(int i) {
+            Iterator<Task> source = sources.get(i);
+            heads[i] = source.hasNext() ? source.next() : null;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package manager.memory.index;
+
+import task.Task;
+import task.TaskStatus;
+import task.TaskType;
+import util.IntObjectMap;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+
+/**
+ * Задачи каждого типа, разложенные по статусам. Добавление, удаление и смена статуса стоят O(1),
+ * выборка задач одного статуса — O(k), где k — количество найденных задач. Задача ищется при удалении
+ * по id во всех статусах своего типа, поэтому индекс не зависит от того, менялся ли статус
+ * объекта задачи после добавления.
+ */
+public class StatusIndex {
+
+    private final EnumMap<TaskType, EnumMap<TaskStatus, IntObjectMap<Task>>> index = new EnumMap<>(TaskType.class);
+
+    public StatusIndex() {
+        for (TaskType type : TaskType.values()) {
+            EnumMap<TaskStatus, IntObjectMap<Task>> byStatus = new EnumMap<>(TaskStatus.class);
+            for (TaskStatus status : TaskStatus.values()) {
+                byStatus.put(status, new IntObjectMap<>());
+            }
+            index.put(type, byStatus);
+        }
+    }
+
+    public void add(Task task) {
+        remove(task);
+        if (task.getStatus() != null) {
+            index.get(task.getType()).get(task.getStatus()).put(task.getId(), task);
+        }
+    }
+
+    public void remove(Task task) {
+        if (task == null) {
+            return;
+        }
+        for (IntObjectMap<Task> tasks : index.get(task.getType()).values()) {
+            tasks.remove(task.getId());
+        }
+    }
+
+    public void clear(TaskType type) {
+        for (IntObjectMap<Task> tasks : index.get(type).values()) {
+            tasks.clear();
+        }
+    }
+
+    public List<Task> get(TaskType type, TaskStatus status) {
+        return new ArrayList<>(index.get(type).get(status).values());
+    }
+
+    public int count(TaskType type, TaskStatus status) {
+        return index.get(type).get(status).size();
+    }
+}
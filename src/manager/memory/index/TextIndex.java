@@ -0,0 +1,316 @@
+package manager.memory.index;
+
+import task.Task;
+import util.IntObjectMap;
+import util.IntSet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Инвертированный индекс слов из названий и описаний задач. Для каждого слова хранится список задач
+ * с весом вхождения: слово из названия весит больше слова из описания. Слова лежат в упорядоченном словаре,
+ * поэтому последнее слово запроса ищется как префикс — подходит для поиска по мере набора текста.
+ * Задача находится, если в ней есть все слова запроса; задачи упорядочиваются по сумме весов.
+ * Список задач слова отсортирован в порядке выдачи, поэтому запрос из одного префикса сливает списки
+ * подходящих слов и останавливается на limit задачах, не просматривая остальные. Слова самой задачи
+ * хранятся отсортированными, и вес задачи по словам запроса считается двоичным поиском по ним.
+ */
+public class TextIndex {
+
+    private static final int NAME_WEIGHT = 2;
+
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    /**
+     * Порядок выдачи: по убыванию веса, при равном весе — по id
+     */
+    public static final Comparator<Match> ORDER = Comparator.comparingInt((Match match) -> -match.score)
+            .thenComparingInt(match -> match.task.getId());
+
+    private static final Comparator<Posting> POSTING_ORDER = Comparator.comparingInt((Posting p) -> -p.weight)
+            .thenComparingInt(p -> p.task.getId());
+
+    private final TreeMap<String, TreeSet<Posting>> postings = new TreeMap<>();
+
+    private final IntObjectMap<Posting[]> postingsByTask = new IntObjectMap<>();    // по возрастанию слова
+
+    public void add(Task task) {
+        remove(task.getId());
+        TreeMap<String, Integer> weights = new TreeMap<>();
+        for (String term : tokenize(task.getName())) {
+            weights.merge(term, NAME_WEIGHT, Integer::sum);
+        }
+        for (String term : tokenize(task.getDescription())) {
+            weights.merge(term, DESCRIPTION_WEIGHT, Integer::sum);
+        }
+        if (weights.isEmpty()) {
+            return;
+        }
+        Posting[] own = new Posting[weights.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            Posting posting = new Posting(entry.getKey(), task, entry.getValue());
+            postings.computeIfAbsent(posting.term, key -> new TreeSet<>(POSTING_ORDER)).add(posting);
+            own[i++] = posting;
+        }
+        postingsByTask.put(task.getId(), own);
+    }
+
+    public void remove(int id) {
+        Posting[] own = postingsByTask.remove(id);
+        if (own == null) {
+            return;
+        }
+        for (Posting posting : own) {
+            TreeSet<Posting> tasks = postings.get(posting.term);
+            tasks.remove(posting);
+            if (tasks.isEmpty()) {
+                postings.remove(posting.term);
+            }
+        }
+    }
+
+    /**
+     * Ищет задачи, содержащие все слова запроса; последнее слово может быть началом слова
+     *
+     * @param query строка запроса
+     * @param limit наибольшее количество задач в ответе
+     * @return задачи в порядке убывания веса, при равном весе — в порядке id
+     */
+    public List<Task> search(String query, int limit) {
+        List<Task> result = new ArrayList<>();
+        for (Match match : searchRanked(query, limit)) {
+            result.add(match.task);
+        }
+        return result;
+    }
+
+    /**
+     * Ищет задачи так же, как {@link #search(String, int)}, и возвращает их вместе с весом.
+     * Запрос из одного префикса стоит O(T + (limit + d) * log T), где T — число слов словаря с этим
+     * префиксом, а d — повторы задач, в которых таких слов несколько. Запрос с целыми словами
+     * просматривает самый короткий из их списков
+     *
+     * @param query строка запроса
+     * @param limit наибольшее количество задач в ответе
+     * @return совпадения в порядке {@link #ORDER}
+     */
+    public List<Match> searchRanked(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        List<String> exact = new ArrayList<>(terms.subList(0, terms.size() - 1));
+        TreeSet<Posting> shortest = null;
+        for (String term : exact) {
+            TreeSet<Posting> tasks = postings.get(term);
+            if (tasks == null) {
+                return new ArrayList<>();
+            }
+            if (shortest == null || tasks.size() < shortest.size()) {
+                shortest = tasks;
+            }
+        }
+        final String prefix = terms.get(terms.size() - 1);
+        SortedMap<String, TreeSet<Posting>> prefixed = postings.subMap(prefix, prefix + Character.MAX_VALUE);
+        if (prefixed.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (shortest == null) {
+            return merge(prefixed.values(), limit);
+        }
+
+        Comparator<Match> order = ORDER.reversed();
+        PriorityQueue<Match> best = new PriorityQueue<>(order);
+        for (Posting posting : shortest) {
+            int score = score(postingsByTask.get(posting.task.getId()), exact, prefix);
+            if (score > 0) {
+                offer(best, new Match(posting.task, score), limit, order);
+            }
+        }
+        List<Match> result = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            result.add(best.poll());
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Разбивает текст на слова в нижнем регистре
+     *
+     * @param text текст или null
+     * @return список слов
+     */
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean letter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Сливает отсортированные списки слов с префиксом, пока не наберется limit разных задач. Задача,
+     * в которой несколько слов с префиксом, впервые выходит из слияния со своим наибольшим весом,
+     * а повторы пропускаются
+     *
+     * @return совпадения в порядке {@link #ORDER}
+     */
+    private static List<Match> merge(Collection<TreeSet<Posting>> lists, int limit) {
+        List<Cursor> cursors = new ArrayList<>(lists.size());
+        for (TreeSet<Posting> tasks : lists) {
+            cursors.add(new Cursor(tasks.iterator()));
+        }
+        PriorityQueue<Cursor> heads = new PriorityQueue<>(cursors);
+        List<Match> result = new ArrayList<>();
+        IntSet seen = new IntSet();
+        while (result.size() < limit && !heads.isEmpty()) {
+            Cursor cursor = heads.poll();
+            if (seen.add(cursor.head.task.getId())) {
+                result.add(new Match(cursor.head.task, cursor.head.weight));
+            }
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Считает вес задачи по всем словам запроса двоичным поиском по ее отсортированным словам,
+     * поэтому стоимость не зависит от того, сколько слов словаря начинается с префикса
+     *
+     * @param own слова задачи по возрастанию
+     * @return вес задачи или 0, если какого-то слова запроса в задаче нет
+     */
+    private static int score(Posting[] own, List<String> exact, String prefix) {
+        int score = 0;
+        for (String term : exact) {
+            int i = indexOf(own, term);
+            if (i < 0) {
+                return 0;
+            }
+            score += own[i].weight;
+        }
+        int prefixScore = 0;
+        int i = indexOf(own, prefix);
+        for (i = i < 0 ? -i - 1 : i; i < own.length && own[i].term.startsWith(prefix); i++) {
+            prefixScore = Math.max(prefixScore, own[i].weight);
+        }
+        return prefixScore == 0 ? 0 : score + prefixScore;
+    }
+
+    /**
+     * @return позиция слова в own или -(точка вставки) - 1, как в {@link java.util.Arrays#binarySearch}
+     */
+    private static int indexOf(Posting[] own, String term) {
+        int low = 0;
+        int high = own.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = own[mid].term.compareTo(term);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static void offer(PriorityQueue<Match> best, Match match, int limit, Comparator<Match> order) {
+        if (best.size() < limit) {
+            best.add(match);
+        } else if (order.compare(match, best.peek()) > 0) {
+            best.poll();
+            best.add(match);
+        }
+    }
+
+    private static final class Posting {
+
+        private final String term;
+
+        private final Task task;
+
+        private final int weight;
+
+        private Posting(String term, Task task, int weight) {
+            this.term = term;
+            this.task = task;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Позиция в списке слова при слиянии; курсоры упорядочены по текущей задаче
+     */
+    private static final class Cursor implements Comparable<Cursor> {
+
+        private final Iterator<Posting> rest;
+
+        private Posting head;
+
+        private Cursor(Iterator<Posting> rest) {
+            this.rest = rest;
+            this.head = rest.next();
+        }
+
+        private boolean advance() {
+            if (!rest.hasNext()) {
+                return false;
+            }
+            head = rest.next();
+            return true;
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            return POSTING_ORDER.compare(head, other.head);
+        }
+    }
+
+    public static final class Match {
+
+        private final Task task;
+
+        private final int score;
+
+        private Match(Task task, int score) {
+            this.task = task;
+            this.score = score;
+        }
+
+        public Task getTask() {
+            return task;
+        }
+
+        public int getScore() {
+            return score;
+        }
+    }
+}
@@ -3,30 +3,79 @@ package manager.web;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import manager.Managers;
+import manager.exception.ManagerLoadException;
+import manager.exception.ManagerSaveException;
 import manager.file.FileBackedTaskManager;
+import manager.id.IdGenerator;
 import server.KVTaskClient;
 import task.Epic;
 import task.Subtask;
 import task.Task;
-import task.TaskType;
 
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 public class HttpTaskManager extends FileBackedTaskManager {
 
+    private static final String HISTORY_LOG = "history-log";
+
     private final Gson gson;
     private final KVTaskClient client;
 
+    /**
+     * Сколько миллисекунд просмотр ждет в буфере, прежде чем буфер будет дописан в журнал на KVServer
+     */
+    private static final long HISTORY_LOG_FLUSH_DELAY = 100;
+
+    /**
+     * Общий для всех менеджеров поток-демон, который дописывает накопленные просмотры в журналы
+     */
+    private static final ScheduledExecutorService LOG_WRITER = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "history-log-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final StringBuilder pendingViews = new StringBuilder();    // просмотры, еще не дописанные в журнал
+
+    private final Object logLock = new Object();    // упорядочивает записи журнала и полные сохранения
+
+    private boolean flushScheduled;
+
     public HttpTaskManager(String url) throws URISyntaxException {
         super(null);
         gson = Managers.getGson();
         client = new KVTaskClient(url);
     }
 
+    private HttpTaskManager(KVTaskClient client, IdGenerator idGenerator) {
+        super(null, idGenerator);
+        gson = Managers.getGson();
+        this.client = client;
+    }
+
+    /**
+     * Создает менеджер, который получает id блоками, зарезервированными на KVServer. Так несколько менеджеров
+     * могут работать с одним KVServer, не выдавая одинаковых id
+     *
+     * @param url         адрес KVServer
+     * @param idBlockSize количество id, резервируемых за одно обращение к серверу
+     * @return менеджер задач
+     */
+    public static HttpTaskManager withLeasedIds(String url, int idBlockSize) {
+        KVTaskClient client = new KVTaskClient(url);
+        return new HttpTaskManager(client, new LeasedIdGenerator(client, idBlockSize));
+    }
+
+    /**
+     * Сохраняет задачи. История на сервере при этом не выгружается: она сохраняется целиком только
+     * при сворачивании журнала просмотров
+     */
     @Override
     protected void save() {
         String jsonTasks = gson.toJson(new ArrayList<>(tasks.values()));
@@ -37,66 +86,155 @@ public class HttpTaskManager extends FileBackedTaskManager {
 
         String jsonSubtasks = gson.toJson(new ArrayList<>(subtasks.values()));
         client.put("subtasks", jsonSubtasks);
+    }
+
+    /**
+     * Сохраняет историю целиком и сворачивает журнал. Буфер просмотров очищается раньше, чем берется
+     * снимок истории: просмотр, попавший в буфер до очистки, уже есть в снимке, а попавший после
+     * уйдет в новый журнал
+     */
+    @Override
+    protected void saveHistory() {
+        synchronized (logLock) {
+            loggedViews.set(0);
+            synchronized (pendingViews) {
+                pendingViews.setLength(0);
+            }
+            String jsonHistory = gson.toJson(historyManager.getHistory()
+                    .stream()
+                    .map(Task::getId)
+                    .collect(Collectors.toList()));
+            client.put("history", jsonHistory);
+            // KVServer не сохраняет пустые значения, поэтому пустой журнал — один перевод строки
+            client.put(HISTORY_LOG, "\n");
+        }
+    }
+
+    /**
+     * Копит просмотр в буфере; буфер дописывается в журнал на KVServer одним запросом через
+     * {@link #HISTORY_LOG_FLUSH_DELAY} мс после первого просмотра в нем. Когда журнал дорастает до
+     * {@link #HISTORY_LOG_LIMIT} записей, менеджер сохраняется полностью и журнал сворачивается
+     *
+     * @param id id просмотренной задачи
+     */
+    @Override
+    protected void appendView(int id) {
+        synchronized (pendingViews) {
+            pendingViews.append(id).append('\n');
+            if (!flushScheduled) {
+                flushScheduled = true;
+                LOG_WRITER.schedule(this::flushInBackground, HISTORY_LOG_FLUSH_DELAY, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (loggedViews.incrementAndGet() >= HISTORY_LOG_LIMIT) {
+            saveHistory();
+        }
+    }
+
+    /**
+     * Дописывает накопленные просмотры в журнал на KVServer, не дожидаясь фоновой записи
+     */
+    public void flushHistoryLog() {
+        synchronized (logLock) {
+            String views;
+            synchronized (pendingViews) {
+                flushScheduled = false;
+                views = pendingViews.toString();
+                pendingViews.setLength(0);
+            }
+            if (views.isEmpty()) {
+                return;
+            }
+            try {
+                client.append(HISTORY_LOG, views);
+            } catch (ManagerSaveException e) {
+                // просмотры возвращаются в буфер и уйдут со следующей записью
+                synchronized (pendingViews) {
+                    pendingViews.insert(0, views);
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Дописывает накопленные просмотры и останавливает менеджер
+     */
+    @Override
+    public void close() {
+        flushHistoryLog();
+        super.close();
+    }
 
-        String jsonHistory = gson.toJson(historyManager.getHistory()
-                .stream()
-                .map(Task::getId)
-                .collect(Collectors.toList()));
-        client.put("history", jsonHistory);
+    private void flushInBackground() {
+        try {
+            flushHistoryLog();
+        } catch (ManagerSaveException e) {
+            System.out.println("Ошибка записи журнала просмотров: " + e.getMessage());
+        }
     }
 
     public static HttpTaskManager loadFromServer(String url) throws URISyntaxException {
-        HttpTaskManager taskManager = new HttpTaskManager(url);
+        return load(new HttpTaskManager(url));
+    }
+
+    /**
+     * Загружает менеджер, который получает id блоками, зарезервированными на KVServer
+     *
+     * @param url         адрес KVServer
+     * @param idBlockSize количество id, резервируемых за одно обращение к серверу
+     * @return менеджер задач
+     */
+    public static HttpTaskManager loadFromServer(String url, int idBlockSize) {
+        return load(withLeasedIds(url, idBlockSize));
+    }
+
+    private static HttpTaskManager load(HttpTaskManager taskManager) {
+        List<Task> records = new ArrayList<>();
 
         String jsonTasks = taskManager.client.load("tasks");
         List<Task> tasks = taskManager.gson.fromJson(jsonTasks, new TypeToken<ArrayList<Task>>() {
         }.getType());
-        taskManager.addTasks(tasks);
+        records.addAll(tasks);
 
         String jsonEpics = taskManager.client.load("epics");
         List<Epic> epics = taskManager.gson.fromJson(jsonEpics, new TypeToken<ArrayList<Epic>>() {
         }.getType());
-        taskManager.addTasks(epics);
+        records.addAll(epics);
 
         String jsonSubtasks = taskManager.client.load("subtasks");
         List<Subtask> subtasks = taskManager.gson.fromJson(jsonSubtasks, new TypeToken<ArrayList<Subtask>>() {
         }.getType());
-        taskManager.addTasks(subtasks);
+        records.addAll(subtasks);
+
+        taskManager.restore(records);
 
-        String jsonHistory = taskManager.client.load("history");
+        String jsonHistory = loadOptional(taskManager.client, "history", "[]");
         List<Integer> history = taskManager.gson.fromJson(jsonHistory, new TypeToken<ArrayList<Integer>>() {
         }.getType());
         for (Integer id : history) {
-            for (Task task : taskManager.prioritizedTasks.keySet()) {
-                if (Objects.equals(task.getId(), id)) {
-                    taskManager.getHistoryManager().add(task);
-                }
+            taskManager.getHistoryManager().add(taskManager.getById(id));
+        }
+
+        for (String line : loadOptional(taskManager.client, HISTORY_LOG, "").split("\n")) {
+            if (!line.isBlank()) {
+                taskManager.getHistoryManager().add(taskManager.getById(Integer.parseInt(line)));
+                taskManager.loggedViews.incrementAndGet();
             }
         }
 
         return taskManager;
     }
 
-    private void addTasks(List<? extends Task> tasks) {
-        for (Task task : tasks) {
-            if (uid < task.getId()) {
-                uid = task.getId();
-            }
-            TaskType taskType = TaskType.valueOf(task.getClass().getSimpleName().toUpperCase());
-            switch (taskType) {
-                case TASK:
-                    this.tasks.put(task.getId(), task);
-                    prioritizedTasks.put(task, task.getStartTime());
-                    break;
-                case EPIC:
-                    this.epics.put(task.getId(), (Epic) task);
-                    prioritizedTasks.put(task, task.getStartTime());
-                    break;
-                case SUBTASK:
-                    this.subtasks.put(task.getId(), (Subtask) task);
-                    prioritizedTasks.put(task, task.getStartTime());
-                    break;
-            }
+    /**
+     * @return значение ключа; missing, если ключа на сервере нет — история не сохранялась целиком
+     * или журнал еще не начат
+     */
+    private static String loadOptional(KVTaskClient client, String key, String missing) {
+        try {
+            return client.load(key);
+        } catch (ManagerLoadException e) {
+            return missing;
         }
     }
 }
@@ -0,0 +1,104 @@
+package manager.web;
+
+import manager.exception.ManagerSaveException;
+import manager.id.IdGenerator;
+import server.KVTaskClient;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Генератор id для нескольких менеджеров, работающих с одним KVServer. Генератор резервирует на сервере
+ * блок из blockSize id и выдает их локально, без обращений к серверу и без блокировок; за новым блоком
+ * обращается, только когда текущий закончился. Блоки разных экземпляров не пересекаются, поэтому id
+ * не совпадают. Id в пределах экземпляра возрастают, но между экземплярами могут идти не подряд.
+ * Все экземпляры, пишущие в один KVServer, должны получать id через резервирование по одному ключу.
+ * Когда id до Integer.MAX_VALUE закончились, сервер отказывает в резервировании, и nextId бросает
+ * {@link ManagerSaveException}
+ */
+public class LeasedIdGenerator implements IdGenerator {
+
+    public static final String DEFAULT_KEY = "ids";
+
+    private final KVTaskClient client;
+
+    private final String key;
+
+    private final int blockSize;
+
+    // старшие 32 бита — конец блока, младшие — следующий id; обе половины без знака, поэтому конец блока,
+    // последний id которого Integer.MAX_VALUE, равен 2^31 и не переполняется
+    private final AtomicLong block = new AtomicLong();
+
+    public LeasedIdGenerator(KVTaskClient client, int blockSize) {
+        this(client, DEFAULT_KEY, blockSize);
+    }
+
+    public LeasedIdGenerator(KVTaskClient client, String key, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Размер блока id должен быть положительным: " + blockSize);
+        }
+        this.client = client;
+        this.key = key;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public int nextId() {
+        while (true) {
+            long current = block.get();
+            if (next(current) < end(current)) {
+                if (block.compareAndSet(current, current + 1)) {
+                    return (int) next(current);
+                }
+            } else {
+                lease(current, 0);
+            }
+        }
+    }
+
+    @Override
+    public void advanceTo(int id) {
+        while (true) {
+            long current = block.get();
+            if (next(current) > id) {
+                return;
+            }
+            if (id + 1L < end(current)) {
+                if (block.compareAndSet(current, pack(id + 1L, end(current)))) {
+                    return;
+                }
+            } else {
+                lease(current, id);
+            }
+        }
+    }
+
+    /**
+     * Резервирует новый блок, если текущий блок еще не заменен другим потоком
+     *
+     * @param exhausted блок, который нужно заменить
+     * @param after     id, после которого должен начинаться новый блок
+     */
+    private synchronized void lease(long exhausted, int after) {
+        if (block.get() != exhausted) {
+            return;
+        }
+        int start = client.reserve(key, blockSize, after);
+        if (start <= after || (long) start + blockSize - 1 > Integer.MAX_VALUE) {
+            throw new ManagerSaveException("Сервер выдал неверный блок id: " + start + " размером " + blockSize);
+        }
+        block.set(pack(start, (long) start + blockSize));
+    }
+
+    private static long pack(long next, long end) {
+        return end << 32 | next;
+    }
+
+    private static long next(long block) {
+        return block & 0xFFFFFFFFL;
+    }
+
+    private static long end(long block) {
+        return block >>> 32;
+    }
+}
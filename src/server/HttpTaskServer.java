@@ -5,29 +5,58 @@ import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpServer;
 import manager.Managers;
 import manager.TaskManager;
+import manager.memory.history.SessionHistoryManager;
+import manager.memory.index.OccupancyIndex;
 import task.Epic;
 import task.Subtask;
 import task.Task;
+import task.TaskStatus;
+import task.TaskType;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 public class HttpTaskServer {
 
     public static final int PORT = 8080;
+    private static final int DEFAULT_PAGE_SIZE = 50;
     private final HttpServer server;
     private final Gson gson;
 
+    public static final String SESSION_HEADER = "X-Session-Id";
+    private static final String SESSION_PARAM = "session";
+
     private final TaskManager taskManager;
 
+    private final SessionHistoryManager sessionHistory;
+
     public HttpTaskServer() throws IOException {
         this(Managers.getDefault());
     }
 
     public HttpTaskServer(TaskManager taskManager) throws IOException {
+        this(taskManager, new SessionHistoryManager());
+    }
+
+    /**
+     * @param taskManager    менеджер задач
+     * @param sessionHistory истории просмотров сессий; сессия передается заголовком X-Session-Id
+     *                       или параметром запроса session
+     */
+    public HttpTaskServer(TaskManager taskManager, SessionHistoryManager sessionHistory) throws IOException {
         this.taskManager = taskManager;
+        this.sessionHistory = sessionHistory;
         gson = Managers.getGson();
         server = HttpServer.create(new InetSocketAddress("localhost", PORT), 0);
         server.createContext("/tasks", this::handler);
@@ -54,6 +83,12 @@ public class HttpTaskServer {
                 case "history":
                     handleHistory(httpExchange);
                     break;
+                case "search":
+                    handleSearch(httpExchange);
+                    break;
+                case "occupancy":
+                    handleOccupancy(httpExchange);
+                    break;
                 case "":
                     handleAllTasks(httpExchange);
                     break;
@@ -87,6 +122,34 @@ public class HttpTaskServer {
         h.getResponseBody().write(resp);
     }
 
+    /**
+     * @return размер страницы из параметра limit или {@link #DEFAULT_PAGE_SIZE}, если параметр не указан
+     * @throws IllegalArgumentException если limit не число или отрицателен
+     */
+    private static int parseLimit(Map<String, String> params) {
+        if (!params.containsKey("limit")) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return parseCount(params, "limit");
+    }
+
+    /**
+     * @return неотрицательное число из параметра name или 0, если параметр не указан
+     * @throws IllegalArgumentException если значение не число или отрицательно
+     */
+    private static int parseCount(Map<String, String> params, String name) {
+        final int count = Integer.parseInt(params.getOrDefault(name, "0"));
+        if (count < 0) {
+            throw new IllegalArgumentException(name + " не может быть отрицательным: " + count);
+        }
+        return count;
+    }
+
+    private void sendBadRequest(HttpExchange h, String message) throws IOException {
+        System.out.println(message);
+        h.sendResponseHeaders(400, 0);
+    }
+
     private void handleTask(HttpExchange httpExchange) throws IOException {
         final String query = httpExchange.getRequestURI().getQuery();
         final String requestMethod = httpExchange.getRequestMethod();
@@ -96,14 +159,17 @@ public class HttpTaskServer {
 
         switch (requestMethod) {
             case "GET":
-                if (query == null) {
+                final Map<String, String> params = parseQuery(httpExchange.getRequestURI().getRawQuery());
+                if (!params.containsKey("id")) {
                     response = gson.toJson(taskManager.getTasks());
                     System.out.println("Получили все задачи");
                     sendText(httpExchange, response);
                     return;
                 }
-                taskId = Integer.parseInt(query.substring(3));
-                response = gson.toJson(taskManager.getTask(taskId));
+                taskId = Integer.parseInt(params.get("id"));
+                final Task viewed = taskManager.getTask(taskId);
+                recordView(httpExchange, params, viewed);
+                response = gson.toJson(viewed);
                 System.out.println("Вернули задачу, taskId = " + taskId);
                 sendText(httpExchange, response);
                 break;
@@ -150,14 +216,17 @@ public class HttpTaskServer {
 
         switch (requestMethod) {
             case "GET":
-                if (query == null) {
+                final Map<String, String> params = parseQuery(httpExchange.getRequestURI().getRawQuery());
+                if (!params.containsKey("id")) {
                     response = gson.toJson(taskManager.getSubtasks());
                     System.out.println("Получили все подзадачи");
                     sendText(httpExchange, response);
                     return;
                 }
-                subtaskId = Integer.parseInt(query.substring(3));
-                response = gson.toJson(taskManager.getSubtask(subtaskId));
+                subtaskId = Integer.parseInt(params.get("id"));
+                final Subtask viewed = taskManager.getSubtask(subtaskId);
+                recordView(httpExchange, params, viewed);
+                response = gson.toJson(viewed);
                 System.out.println("Вернули подзадачу, subtaskId = " + subtaskId);
                 sendText(httpExchange, response);
                 break;
@@ -205,14 +274,17 @@ public class HttpTaskServer {
 
         switch (requestMethod) {
             case "GET":
-                if (query == null) {
+                final Map<String, String> params = parseQuery(httpExchange.getRequestURI().getRawQuery());
+                if (!params.containsKey("id")) {
                     response = gson.toJson(taskManager.getEpics());
                     System.out.println("Получили все эпики");
                     sendText(httpExchange, response);
                     return;
                 }
-                epicId = Integer.parseInt(query.substring(3));
-                response = gson.toJson(taskManager.getEpic(epicId));
+                epicId = Integer.parseInt(params.get("id"));
+                final Epic viewed = taskManager.getEpic(epicId);
+                recordView(httpExchange, params, viewed);
+                response = gson.toJson(viewed);
                 System.out.println("Вернули эпик, epicId = " + epicId);
                 sendText(httpExchange, response);
                 break;
@@ -267,8 +339,63 @@ public class HttpTaskServer {
             System.out.println("/ ждет GET-запрос, а получил: " + httpExchange.getRequestMethod());
             httpExchange.sendResponseHeaders(405, 0);
         }
-        String response = gson.toJson(taskManager.getHistory());
-        System.out.println("Получили историю задач.");
+        final Map<String, String> params = parseQuery(httpExchange.getRequestURI().getRawQuery());
+        final String session = sessionOf(httpExchange, params);
+        if (session != null) {
+            handleSessionHistory(httpExchange, params, session);
+            return;
+        }
+
+        String response;
+        try {
+            if (params.containsKey("last")) {
+                int count = parseCount(params, "last");
+                response = gson.toJson(taskManager.getRecentHistory(count));
+                System.out.println("Получили " + count + " последних задач истории.");
+            } else if (params.containsKey("offset") || params.containsKey("limit")) {
+                int offset = parseCount(params, "offset");
+                int limit = parseLimit(params);
+                response = gson.toJson(taskManager.getHistory(offset, limit));
+                System.out.println("Получили страницу истории с позиции " + offset + ".");
+            } else {
+                response = gson.toJson(taskManager.getHistory());
+                System.out.println("Получили историю задач.");
+            }
+        } catch (IllegalArgumentException e) {
+            sendBadRequest(httpExchange, "/history получил неверные параметры запроса: " + e.getMessage());
+            return;
+        }
+        sendText(httpExchange, response);
+    }
+
+    /**
+     * Отдает историю просмотров сессии. Задачи берутся из менеджера без записи в историю,
+     * удаленные после просмотра задачи пропускаются
+     */
+    private void handleSessionHistory(HttpExchange httpExchange, Map<String, String> params, String session)
+            throws IOException {
+        List<Task> history = new ArrayList<>();
+        for (int id : sessionHistory.getHistory(session)) {
+            Task task = taskManager.getById(id);
+            if (task != null) {
+                history.add(task);
+            }
+        }
+        int from = 0;
+        int to = history.size();
+        try {
+            if (params.containsKey("last")) {
+                from = Math.max(to - parseCount(params, "last"), 0);
+            } else if (params.containsKey("offset") || params.containsKey("limit")) {
+                from = Math.min(parseCount(params, "offset"), to);
+                to = from + Math.min(parseLimit(params), to - from);
+            }
+        } catch (IllegalArgumentException e) {
+            sendBadRequest(httpExchange, "/history получил неверные параметры запроса: " + e.getMessage());
+            return;
+        }
+        String response = gson.toJson(history.subList(from, to));
+        System.out.println("Получили историю сессии " + session + ".");
         sendText(httpExchange, response);
     }
 
@@ -277,8 +404,133 @@ public class HttpTaskServer {
             System.out.println("/ ждет GET-запрос, а получил: " + httpExchange.getRequestMethod());
             httpExchange.sendResponseHeaders(405, 0);
         }
-        String response = gson.toJson(taskManager.getPrioritizedTasks());
-        System.out.println("Получили все задачи.");
+        final Map<String, String> params = parseQuery(httpExchange.getRequestURI().getRawQuery());
+
+        String response;
+        try {
+            if (params.containsKey("status")) {
+                TaskStatus status = TaskStatus.valueOf(params.get("status"));
+                if (params.containsKey("type")) {
+                    TaskType type = TaskType.valueOf(params.get("type"));
+                    response = gson.toJson(taskManager.getTasksByStatus(type, status));
+                } else {
+                    response = gson.toJson(taskManager.getTasksByStatus(status));
+                }
+                System.out.println("Получили задачи со статусом " + status + ".");
+            } else if (params.containsKey("from") && params.containsKey("to")) {
+                LocalDateTime from = LocalDateTime.parse(params.get("from"));
+                LocalDateTime to = LocalDateTime.parse(params.get("to"));
+                response = gson.toJson(taskManager.getPrioritizedTasksBetween(from, to));
+                System.out.println("Получили задачи с " + from + " по " + to + ".");
+            } else if (params.containsKey("after") || params.containsKey("limit")) {
+                int after = Integer.parseInt(params.getOrDefault("after", "0"));
+                int limit = parseLimit(params);
+                response = gson.toJson(taskManager.getPrioritizedTasksAfter(after, limit));
+                System.out.println("Получили страницу задач после taskId = " + after + ".");
+            } else {
+                response = gson.toJson(taskManager.getPrioritizedTasks());
+                System.out.println("Получили все задачи.");
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            sendBadRequest(httpExchange, "/ получил неверные параметры запроса: " + e.getMessage());
+            return;
+        }
+        sendText(httpExchange, response);
+    }
+
+    private void handleSearch(HttpExchange httpExchange) throws IOException {
+        if (!httpExchange.getRequestMethod().equals("GET")) {
+            System.out.println("/search ждет GET-запрос, а получил: " + httpExchange.getRequestMethod());
+            httpExchange.sendResponseHeaders(405, 0);
+            return;
+        }
+        final Map<String, String> params = parseQuery(httpExchange.getRequestURI().getRawQuery());
+        final String query = params.get("q");
+        final int limit;
+        try {
+            limit = parseLimit(params);
+        } catch (IllegalArgumentException e) {
+            sendBadRequest(httpExchange, "/search получил неверные параметры запроса: " + e.getMessage());
+            return;
+        }
+        if (query == null || query.isBlank()) {
+            sendBadRequest(httpExchange, "/search ждет непустой параметр q");
+            return;
+        }
+        String response = gson.toJson(taskManager.search(query, limit));
+        System.out.println("Нашли задачи по запросу: " + query);
         sendText(httpExchange, response);
     }
+
+    private void handleOccupancy(HttpExchange httpExchange) throws IOException {
+        if (!httpExchange.getRequestMethod().equals("GET")) {
+            System.out.println("/occupancy ждет GET-запрос, а получил: " + httpExchange.getRequestMethod());
+            httpExchange.sendResponseHeaders(405, 0);
+            return;
+        }
+        final Map<String, String> params = parseQuery(httpExchange.getRequestURI().getRawQuery());
+        if (!params.containsKey("from") || !params.containsKey("to")) {
+            System.out.println("/occupancy ждет параметры from и to");
+            httpExchange.sendResponseHeaders(400, 0);
+            return;
+        }
+        final LocalDate from;
+        final LocalDate to;
+        try {
+            from = LocalDate.parse(params.get("from"));
+            to = LocalDate.parse(params.get("to"));
+        } catch (DateTimeParseException e) {
+            sendBadRequest(httpExchange, "/occupancy ждет даты в формате ГГГГ-ММ-ДД: " + e.getParsedString());
+            return;
+        }
+        if (from.isAfter(to) || ChronoUnit.DAYS.between(from, to) >= OccupancyIndex.MAX_HEATMAP_DAYS) {
+            sendBadRequest(httpExchange, "/occupancy ждет период не длиннее " + OccupancyIndex.MAX_HEATMAP_DAYS
+                    + " дней: " + from + " - " + to);
+            return;
+        }
+        String response = gson.toJson(taskManager.getOccupancyHeatmap(from, to));
+        System.out.println("Получили карту занятости с " + from + " по " + to + ".");
+        sendText(httpExchange, response);
+    }
+
+    /**
+     * Записывает просмотр задачи в историю сессии запроса, если сессия указана и задача найдена
+     */
+    private void recordView(HttpExchange httpExchange, Map<String, String> params, Task task) {
+        final String session = sessionOf(httpExchange, params);
+        if (session != null && task != null) {
+            sessionHistory.add(session, task.getId());
+        }
+    }
+
+    /**
+     * @return id сессии из заголовка X-Session-Id или параметра session; null, если сессия не указана
+     */
+    private static String sessionOf(HttpExchange httpExchange, Map<String, String> params) {
+        String session = httpExchange.getRequestHeaders().getFirst(SESSION_HEADER);
+        if (session == null || session.isBlank()) {
+            session = params.get(SESSION_PARAM);
+        }
+        return session == null || session.isBlank() ? null : session;
+    }
+
+    /**
+     * Разбирает строку запроса вида "key1=value1&key2=value2", декодируя значения из URL-кодировки
+     *
+     * @param query строка запроса без декодирования или null
+     * @return параметры запроса
+     */
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null || query.isBlank()) {
+            return params;
+        }
+        for (String param : query.split("&")) {
+            int separator = param.indexOf('=');
+            if (separator > 0) {
+                params.put(param.substring(0, separator), URLDecoder.decode(param.substring(separator + 1), UTF_8));
+            }
+        }
+        return params;
+    }
 }
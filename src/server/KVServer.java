@@ -19,6 +19,7 @@ public class KVServer {
     private final String apiToken;
     private final HttpServer server;
     private final Map<String, String> data = new HashMap<>();
+    private final Map<String, Long> counters = new HashMap<>();
 
     public KVServer() throws IOException {
         apiToken = generateApiToken();
@@ -26,6 +27,8 @@ public class KVServer {
         server.createContext("/register", this::register);
         server.createContext("/save", this::save);
         server.createContext("/load", this::load);
+        server.createContext("/reserve", this::reserve);
+        server.createContext("/append", this::append);
     }
 
     private void load(HttpExchange h) throws IOException {
@@ -93,6 +96,98 @@ public class KVServer {
         }
     }
 
+    /**
+     * Дописывает тело запроса в конец значения ключа: /append/{key}. Если ключа нет, он создается
+     */
+    private void append(HttpExchange h) throws IOException {
+        try {
+            System.out.println("\n/append");
+            if (!hasAuth(h)) {
+                System.out.println("Запрос неавторизован, нужен параметр в query API_TOKEN со значением апи-ключа");
+                h.sendResponseHeaders(403, 0);
+                return;
+            }
+            if ("POST".equals(h.getRequestMethod())) {
+                String key = h.getRequestURI().getPath().substring("/append/".length());
+                if (key.isEmpty()) {
+                    System.out.println("Key для дописывания пустой. key указывается в пути: /append/{key}");
+                    h.sendResponseHeaders(400, 0);
+                    return;
+                }
+                String value = readText(h);
+                if (value.isEmpty()) {
+                    System.out.println("Value для дописывания пустой. value указывается в теле запроса");
+                    h.sendResponseHeaders(400, 0);
+                    return;
+                }
+                data.merge(key, value, String::concat);
+                System.out.println("Значение для ключа " + key + " дописано.");
+                h.sendResponseHeaders(200, 0);
+            } else {
+                System.out.println("/append ждёт POST-запрос, а получил: " + h.getRequestMethod());
+                h.sendResponseHeaders(405, 0);
+            }
+        } finally {
+            h.close();
+        }
+    }
+
+    /**
+     * Резервирует блок id: /reserve/{key}?size={size}&after={after}. Счетчик ключа сдвигается не ниже after,
+     * в ответе — первый id блока, блок занимает size id подряд
+     */
+    private void reserve(HttpExchange h) throws IOException {
+        try {
+            System.out.println("\n/reserve");
+            if (!hasAuth(h)) {
+                System.out.println("Запрос неавторизован, нужен параметр в query API_TOKEN со значением апи-ключа");
+                h.sendResponseHeaders(403, 0);
+                return;
+            }
+            if ("POST".equals(h.getRequestMethod())) {
+                String key = h.getRequestURI().getPath().substring("/reserve/".length());
+                if (key.isEmpty()) {
+                    System.out.println("Key для резервирования пустой. key указывается в пути: /reserve/{key}");
+                    h.sendResponseHeaders(400, 0);
+                    return;
+                }
+                long size;
+                long after;
+                try {
+                    size = Long.parseLong(queryParam(h, "size", "1"));
+                    after = Long.parseLong(queryParam(h, "after", "0"));
+                } catch (NumberFormatException e) {
+                    System.out.println("size и after должны быть числами");
+                    h.sendResponseHeaders(400, 0);
+                    return;
+                }
+                if (size <= 0 || after < 0) {
+                    System.out.println("size должен быть положительным, after — неотрицательным");
+                    h.sendResponseHeaders(400, 0);
+                    return;
+                }
+                long start;
+                synchronized (counters) {
+                    long last = Math.max(counters.getOrDefault(key, 0L), after);
+                    if (last + size > Integer.MAX_VALUE) {
+                        System.out.println("Id для ключа " + key + " закончились.");
+                        h.sendResponseHeaders(409, 0);
+                        return;
+                    }
+                    start = last + 1;
+                    counters.put(key, last + size);
+                }
+                sendText(h, String.valueOf(start));
+                System.out.println("Для ключа " + key + " зарезервированы id с " + start + " по " + (start + size - 1));
+            } else {
+                System.out.println("/reserve ждёт POST-запрос, а получил: " + h.getRequestMethod());
+                h.sendResponseHeaders(405, 0);
+            }
+        } finally {
+            h.close();
+        }
+    }
+
     private void register(HttpExchange h) throws IOException {
         try {
             System.out.println("\n/register");
@@ -128,6 +223,18 @@ public class KVServer {
         return rawQuery != null && (rawQuery.contains("API_TOKEN=" + apiToken) || rawQuery.contains("API_TOKEN=DEBUG"));
     }
 
+    private String queryParam(HttpExchange h, String name, String defaultValue) {
+        String rawQuery = h.getRequestURI().getRawQuery();
+        if (rawQuery != null) {
+            for (String param : rawQuery.split("&")) {
+                if (param.startsWith(name + "=")) {
+                    return param.substring(name.length() + 1);
+                }
+            }
+        }
+        return defaultValue;
+    }
+
     protected String readText(HttpExchange h) throws IOException {
         return new String(h.getRequestBody().readAllBytes(), UTF_8);
     }
@@ -77,4 +77,57 @@ public class KVTaskClient {
             throw new ManagerSaveException("Ошибка в отправке ответа.");
         }
     }
+
+    /**
+     * Дописывает текст в конец значения ключа; ключ создается, если его нет
+     *
+     * @param key  ключ
+     * @param text дописываемый текст
+     */
+    public void append(String key, String text) {
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            URI uri = URI.create(url + "append/" + key + "?API_TOKEN=" + apiToken);
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(uri)
+                    .POST(HttpRequest.BodyPublishers.ofString(text))
+                    .build();
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+
+            if (response.statusCode() != 200) {
+                throw new ManagerSaveException("Невозможно дописать значение. Код: " + response.statusCode());
+            }
+        } catch (IOException | InterruptedException e) {
+            throw new ManagerSaveException("Ошибка в отправке ответа.");
+        }
+    }
+
+    /**
+     * Резервирует на сервере блок id
+     *
+     * @param key   ключ счетчика
+     * @param size  количество id в блоке
+     * @param after id, после которого должен начинаться блок
+     * @return первый id блока
+     */
+    public int reserve(String key, int size, int after) {
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            URI uri = URI.create(url + "reserve/" + key + "?API_TOKEN=" + apiToken + "&size=" + size
+                    + "&after=" + after);
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(uri)
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+            if (response.statusCode() != 200) {
+                throw new ManagerSaveException("Невозможно зарезервировать id. Код: " + response.statusCode());
+            }
+
+            return Integer.parseInt(response.body());
+        } catch (IOException | InterruptedException e) {
+            throw new ManagerSaveException("Ошибка в отправке ответа.");
+        }
+    }
 }
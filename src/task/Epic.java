@@ -1,5 +1,7 @@
 package task;
 
+import util.IntSet;
+
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -7,17 +9,28 @@ import java.util.Objects;
 
 public class Epic extends Task {
 
-    private final ArrayList<Integer> subtasksId;
+    private final IntSet subtasksId;
 
     private LocalDateTime endTime;
 
+    private transient int newSubtasksCount;           // счетчики статусов подзадач эпика
+    private transient int inProgressSubtasksCount;
+    private transient int doneSubtasksCount;
+
     public Epic(String name, String description, TaskStatus status) {
         super(name, description, status);
-        subtasksId = new ArrayList<>();
+        subtasksId = new IntSet();
+    }
+
+    @Override
+    public TaskType getType() {
+        return TaskType.EPIC;
     }
 
     public ArrayList<Integer> getSubtasksId() {
-        return new ArrayList<>(subtasksId);
+        ArrayList<Integer> ids = new ArrayList<>(subtasksId.size());
+        subtasksId.forEach(ids::add);
+        return ids;
     }
 
     public void addSubtaskId(int id) {
@@ -29,7 +42,54 @@ public class Epic extends Task {
     }
 
     public void removeSubtaskId(int id) {
-        subtasksId.remove((Integer) id);
+        subtasksId.remove(id);
+    }
+
+    public void countSubtaskStatus(TaskStatus status) {
+        changeSubtaskStatusCount(status, 1);
+    }
+
+    public void uncountSubtaskStatus(TaskStatus status) {
+        changeSubtaskStatusCount(status, -1);
+    }
+
+    public void resetSubtaskStatusCounts() {
+        newSubtasksCount = 0;
+        inProgressSubtasksCount = 0;
+        doneSubtasksCount = 0;
+    }
+
+    /**
+     * Вычисляет статус эпика по счетчикам статусов его подзадач
+     *
+     * @return NEW, если подзадач нет или все они новые, DONE, если все завершены, иначе IN_PROGRESS
+     */
+    public TaskStatus getStatusBySubtasks() {
+        int total = newSubtasksCount + inProgressSubtasksCount + doneSubtasksCount;
+        if (newSubtasksCount == total) {
+            return TaskStatus.NEW;
+        } else if (doneSubtasksCount == total) {
+            return TaskStatus.DONE;
+        } else {
+            return TaskStatus.IN_PROGRESS;
+        }
+    }
+
+    private void changeSubtaskStatusCount(TaskStatus status, int delta) {
+        if (status == null) {
+            return;
+        }
+        switch (status) {
+            case NEW:
+                newSubtasksCount += delta;
+                break;
+            case IN_PROGRESS:
+                inProgressSubtasksCount += delta;
+                break;
+            case DONE:
+                doneSubtasksCount += delta;
+                break;
+        }
     }
 
     public LocalDateTime getEndTime() {
@@ -22,6 +22,11 @@ public class Subtask extends Task {
         return epicId;
     }
 
+    @Override
+    public TaskType getType() {
+        return TaskType.SUBTASK;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -40,6 +40,10 @@ public class Task {
         return id;
     }
 
+    public TaskType getType() {
+        return TaskType.TASK;
+    }
+
     public TaskStatus getStatus() {
         return status;
     }
@@ -0,0 +1,163 @@
+package util;
+
+/**
+ * Хеш-таблица с ключами и значениями int без упаковки: открытая адресация с линейным пробированием.
+ * Пустая ячейка хранит ключ 0, поэтому значение для самого ключа 0 хранится отдельно.
+ * Хеш вычисляется так же, как в {@link IntObjectMap}.
+ */
+public class IntIntMap {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private static final int FREE = 0;
+
+    private int[] keys;
+
+    private int[] values;
+
+    private boolean containsFree;
+
+    private int freeValue;
+
+    private int size;
+
+    public IntIntMap() {
+        keys = new int[DEFAULT_CAPACITY];
+        values = new int[DEFAULT_CAPACITY];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        if (key == FREE) {
+            return containsFree;
+        }
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * @param key          ключ
+     * @param defaultValue значение для отсутствующего ключа
+     * @return значение по ключу или defaultValue
+     */
+    public int getOrDefault(int key, int defaultValue) {
+        if (key == FREE) {
+            return containsFree ? freeValue : defaultValue;
+        }
+        int i = indexOf(key);
+        return i >= 0 ? values[i] : defaultValue;
+    }
+
+    public void put(int key, int value) {
+        if (key == FREE) {
+            if (!containsFree) {
+                containsFree = true;
+                size++;
+            }
+            freeValue = value;
+            return;
+        }
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        for (; keys[i] != FREE; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > keys.length / 2) {
+            resize(keys.length * 2);
+        }
+    }
+
+    /**
+     * Удаляет ключ
+     *
+     * @param key          ключ
+     * @param defaultValue значение для отсутствующего ключа
+     * @return прежнее значение по ключу или defaultValue
+     */
+    public int remove(int key, int defaultValue) {
+        if (key == FREE) {
+            if (!containsFree) {
+                return defaultValue;
+            }
+            containsFree = false;
+            size--;
+            return freeValue;
+        }
+        int i = indexOf(key);
+        if (i < 0) {
+            return defaultValue;
+        }
+        int old = values[i];
+        removeAt(i);
+        return old;
+    }
+
+    public void clear() {
+        keys = new int[DEFAULT_CAPACITY];
+        values = new int[DEFAULT_CAPACITY];
+        containsFree = false;
+        size = 0;
+    }
+
+    private int indexOf(int key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); keys[i] != FREE; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int slot(int key, int mask) {
+        return (key ^ (key >>> 16)) & mask;
+    }
+
+    /**
+     * Удаляет элемент из ячейки и сдвигает назад следующие элементы цепочки пробирования
+     */
+    private void removeAt(int slot) {
+        int mask = keys.length - 1;
+        int gap = slot;
+        keys[gap] = FREE;
+        for (int i = (gap + 1) & mask; keys[i] != FREE; i = (i + 1) & mask) {
+            int home = slot(keys[i], mask);
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                keys[i] = FREE;
+                gap = i;
+            }
+        }
+        size--;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[capacity];
+        values = new int[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != FREE) {
+                int i = slot(oldKeys[j], mask);
+                while (keys[i] != FREE) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package util;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+
+/**
+ * Хеш-таблица с ключами int без упаковки в Integer: открытая адресация с линейным пробированием.
+ * Ключи и значения лежат в двух массивах, пустая ячейка — ячейка со значением null, поэтому
+ * значения null не хранятся. Хеш ключа вычисляется так же, как в HashMap, поэтому
+ * для последовательных id порядок обхода совпадает с порядком HashMap.
+ *
+ * @param <V> тип значений
+ */
+public class IntObjectMap<V> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] keys;
+
+    private Object[] values;
+
+    private int size;
+
+    private int modCount;
+
+    public IntObjectMap() {
+        keys = new int[DEFAULT_CAPACITY];
+        values = new Object[DEFAULT_CAPACITY];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int mask = values.length - 1;
+        for (int i = slot(key, mask); values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return (V) values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Сохраняет значение по ключу
+     *
+     * @param key   ключ
+     * @param value значение, не null
+     * @return предыдущее значение или null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("IntObjectMap не хранит значения null");
+        }
+        int mask = values.length - 1;
+        int i = slot(key, mask);
+        for (; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                V old = (V) values[i];
+                values[i] = value;
+                return old;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        modCount++;
+        if (++size > values.length / 2) {
+            resize(values.length * 2);
+        }
+        return null;
+    }
+
+    public V computeIfAbsent(int key, IntFunction<? extends V> mapping) {
+        V value = get(key);
+        if (value == null) {
+            value = mapping.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int mask = values.length - 1;
+        for (int i = slot(key, mask); values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                V old = (V) values[i];
+                removeAt(i);
+                return old;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Удаляет все элементы. Массивы заменяются новыми массивами начального размера
+     */
+    public void clear() {
+        keys = new int[DEFAULT_CAPACITY];
+        values = new Object[DEFAULT_CAPACITY];
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Возвращает представление значений таблицы без копирования
+     *
+     * @return коллекция значений
+     */
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("{");
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                if (result.length() > 1) {
+                    result.append(", ");
+                }
+                result.append(keys[i]).append('=').append(values[i]);
+            }
+        }
+        return result.append('}').toString();
+    }
+
+    private static int slot(int key, int mask) {
+        return (key ^ (key >>> 16)) & mask;
+    }
+
+    /**
+     * Удаляет элемент из ячейки и сдвигает назад следующие элементы цепочки пробирования,
+     * чтобы в ней не осталось разрывов
+     *
+     * @param slot номер ячейки
+     */
+    private void removeAt(int slot) {
+        int mask = values.length - 1;
+        int gap = slot;
+        values[gap] = null;
+        for (int i = (gap + 1) & mask; values[i] != null; i = (i + 1) & mask) {
+            int home = slot(keys[i], mask);
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                values[i] = null;
+                gap = i;
+            }
+        }
+        size--;
+        modCount++;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[capacity];
+        values = new Object[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldValues.length; j++) {
+            if (oldValues[j] != null) {
+                int i = slot(oldKeys[j], mask);
+                while (values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    private final class ValueIterator implements Iterator<V> {
+
+        private final Object[] table = values;
+
+        private final int expectedModCount = modCount;
+
+        private int next = advance(0);
+
+        @Override
+        public boolean hasNext() {
+            return next < table.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= table.length) {
+                throw new NoSuchElementException();
+            }
+            Object value = table[next];
+            next = advance(next + 1);
+            if (value == null) {
+                throw new ConcurrentModificationException();
+            }
+            return (V) value;
+        }
+
+        private int advance(int from) {
+            int i = from;
+            while (i < table.length && table[i] == null) {
+                i++;
+            }
+            return i;
+        }
+    }
+}
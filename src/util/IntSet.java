@@ -0,0 +1,221 @@
+package util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Множество int без упаковки в Integer, которое обходится в порядке добавления, как LinkedHashSet.
+ * Значения лежат подряд в массиве в порядке добавления, а хеш-таблица с открытой адресацией и линейным
+ * пробированием хранит номера их ячеек (номер + 1, пустая ячейка таблицы — 0). Удаление снимает бит
+ * ячейки значения и убирает ее номер из таблицы сдвигом цепочки назад; освободившиеся ячейки массива
+ * переиспользуются, когда массив заполняется и живые значения переписываются в начало нового массива.
+ * Хеш вычисляется так же, как в {@link IntObjectMap}.
+ */
+public class IntSet {
+
+    private static final int DEFAULT_CAPACITY = 4;
+
+    private static final int EMPTY = 0;
+
+    private int[] items;    // значения в порядке добавления
+
+    private long[] removed;    // биты удаленных ячеек items
+
+    private int[] table;    // номер ячейки items + 1
+
+    private int count;    // занятые ячейки items, включая удаленные
+
+    private int size;
+
+    public IntSet() {
+        allocate(DEFAULT_CAPACITY);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Добавляет значение в конец порядка обхода
+     *
+     * @param value значение
+     * @return true, если значения еще не было в множестве
+     */
+    public boolean add(int value) {
+        if (indexOf(value) >= 0) {
+            return false;
+        }
+        if (count == items.length) {
+            rebuild(Math.max(DEFAULT_CAPACITY, Integer.highestOneBit(Math.max(size * 2 - 1, 1)) * 2));
+        }
+        items[count] = value;
+        insert(count++);
+        size++;
+        return true;
+    }
+
+    /**
+     * Удаляет значение
+     *
+     * @param value значение
+     * @return true, если значение было в множестве
+     */
+    public boolean remove(int value) {
+        int slot = indexOf(value);
+        if (slot < 0) {
+            return false;
+        }
+        int item = table[slot] - 1;
+        removed[item >>> 6] |= 1L << item;
+        removeAt(slot);
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        allocate(DEFAULT_CAPACITY);
+        count = 0;
+        size = 0;
+    }
+
+    /**
+     * Обходит значения в порядке добавления
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < count; i++) {
+            if (!isRemoved(i)) {
+                action.accept(items[i]);
+            }
+        }
+    }
+
+    /**
+     * @return значения в порядке добавления
+     */
+    public int[] toArray() {
+        int[] result = new int[size];
+        int j = 0;
+        for (int i = 0; i < count; i++) {
+            if (!isRemoved(i)) {
+                result[j++] = items[i];
+            }
+        }
+        return result;
+    }
+
+    private static int slot(int value, int mask) {
+        return (value ^ (value >>> 16)) & mask;
+    }
+
+    private boolean isRemoved(int item) {
+        return (removed[item >>> 6] & (1L << item)) != 0;
+    }
+
+    /**
+     * @return ячейка таблицы, ссылающаяся на значение, или -1
+     */
+    private int indexOf(int value) {
+        int mask = table.length - 1;
+        for (int i = slot(value, mask); table[i] != EMPTY; i = (i + 1) & mask) {
+            if (items[table[i] - 1] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(int item) {
+        int mask = table.length - 1;
+        int i = slot(items[item], mask);
+        while (table[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        table[i] = item + 1;
+    }
+
+    /**
+     * Убирает номер из ячейки таблицы и сдвигает назад следующие элементы цепочки пробирования,
+     * чтобы в ней не осталось разрывов
+     *
+     * @param slot номер ячейки таблицы
+     */
+    private void removeAt(int slot) {
+        int mask = table.length - 1;
+        int gap = slot;
+        table[gap] = EMPTY;
+        for (int i = (gap + 1) & mask; table[i] != EMPTY; i = (i + 1) & mask) {
+            int home = slot(items[table[i] - 1], mask);
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                table[gap] = table[i];
+                table[i] = EMPTY;
+                gap = i;
+            }
+        }
+    }
+
+    /**
+     * Переписывает живые значения в начало нового массива и строит таблицу заново.
+     * Таблица вдвое длиннее массива, поэтому заполнена не больше чем наполовину
+     *
+     * @param capacity длина нового массива, степень двойки
+     */
+    private void rebuild(int capacity) {
+        int[] oldItems = items;
+        long[] oldRemoved = removed;
+        int oldCount = count;
+        allocate(capacity);
+        count = 0;
+        for (int i = 0; i < oldCount; i++) {
+            if ((oldRemoved[i >>> 6] & (1L << i)) == 0) {
+                items[count] = oldItems[i];
+                insert(count++);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        items = new int[capacity];
+        removed = new long[(capacity + 63) >>> 6];
+        table = new int[capacity * 2];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        IntSet other = (IntSet) o;
+        if (size != other.size) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            if (!isRemoved(i) && !other.contains(items[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int i = 0; i < count; i++) {
+            if (!isRemoved(i)) {
+                hash += items[i];
+            }
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
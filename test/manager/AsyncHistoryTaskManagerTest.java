@@ -0,0 +1,12 @@
+package manager;
+
+import manager.memory.InMemoryTaskManager;
+import org.junit.jupiter.api.BeforeEach;
+
+class AsyncHistoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
+
+    @BeforeEach
+    public void setUp() {
+        taskManager = new InMemoryTaskManager(Managers.getAsyncHistory());
+    }
+}
@@ -0,0 +1,170 @@
+package manager;
+
+import manager.event.EventDispatcher;
+import manager.id.AtomicIdGenerator;
+import manager.memory.ConcurrentTaskManager;
+import manager.memory.history.ConcurrentHistoryManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+
+    @BeforeEach
+    public void setUp() {
+        taskManager = new ConcurrentTaskManager();
+    }
+
+    @Test
+    void testConcurrentTM1_createFromManyThreads() throws Exception {
+        final int threads = 8;
+        final int tasksPerThread = 500;
+        Epic epic = new Epic("epic", "epic", TaskStatus.NEW);
+        final int epicId = taskManager.createEpic(epic);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < tasksPerThread; j++) {
+                    final int taskId = taskManager.createTask(new Task("task", "task", TaskStatus.NEW));
+                    taskManager.createSubtask(new Subtask("subtask", "subtask", TaskStatus.DONE, epicId));
+                    taskManager.getTask(taskId);
+                    taskManager.getTasks();
+                    taskManager.getSubtasksFromEpic(epicId);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        Set<Integer> ids = new HashSet<>();
+        for (Task task : taskManager.getTasks()) {
+            ids.add(task.getId());
+        }
+        for (Subtask subtask : taskManager.getSubtasks()) {
+            ids.add(subtask.getId());
+        }
+
+        assertEquals(threads * tasksPerThread, taskManager.getTasks().size(), "Неверное количество задач.");
+        assertEquals(threads * tasksPerThread, taskManager.getSubtasksFromEpic(epicId).size(),
+                "Неверное количество подзадач эпика.");
+        assertEquals(2 * threads * tasksPerThread, ids.size(), "ID задач повторяются.");
+        assertEquals(TaskStatus.DONE, taskManager.getEpic(epicId).getStatus(), "Неправильный статус эпика.");
+        assertEquals(threads * tasksPerThread + 1, taskManager.getHistory().size(), "Неверный размер истории.");
+    }
+
+    @Test
+    void testConcurrentTM2_recordViewsFromManyThreads() throws Exception {
+        final int threads = 8;
+        final int views = 2000;
+        final List<Integer> taskIds = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            taskIds.add(taskManager.createTask(new Task("task" + i, "task" + i, TaskStatus.NEW)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            final int thread = i;
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < views; j++) {
+                    taskManager.getTask(taskIds.get((thread + j) % taskIds.size()));
+                    if (j % 100 == 0) {
+                        taskManager.getRecentHistory(10);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        final int lastId = taskIds.get(taskIds.size() - 1);
+        taskManager.getTask(lastId);
+        final List<Task> history = taskManager.getHistory();
+        Set<Integer> ids = new HashSet<>();
+        for (Task task : history) {
+            ids.add(task.getId());
+        }
+
+        assertEquals(taskIds.size(), history.size(), "Неверный размер истории.");
+        assertEquals(taskIds.size(), ids.size(), "Задачи в истории повторяются.");
+        assertEquals(lastId, history.get(history.size() - 1).getId(), "Последний просмотр не в конце истории.");
+    }
+
+    @Test
+    void testConcurrentTM3_dropEventsWhenListenerLags() throws InterruptedException {
+        EventDispatcher events = new EventDispatcher(4);
+        taskManager = new ConcurrentTaskManager(new ConcurrentHistoryManager(Managers.getDefaultHistory()),
+                new AtomicIdGenerator(), events);
+        final CountDownLatch release = new CountDownLatch(1);
+        taskManager.subscribe(event -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        for (int i = 0; i < 50; i++) {
+            taskManager.createTask(new Task("task" + i, "task" + i, TaskStatus.NEW));
+        }
+
+        assertEquals(50, taskManager.getTasks().size(), "Запись ждала медленного подписчика.");
+        assertTrue(events.getDroppedCount() > 0, "События сверх буфера не отброшены.");
+
+        release.countDown();
+        taskManager.close();
+    }
+
+    @Test
+    void testConcurrentTM4_wrapNotThreadSafeHistory() throws Exception {
+        taskManager = new ConcurrentTaskManager(Managers.getDefaultHistory(), new AtomicIdGenerator());
+        final int threads = 8;
+        final List<Integer> taskIds = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            taskIds.add(taskManager.createTask(new Task("task" + i, "task" + i, TaskStatus.NEW)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            final int thread = i;
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < 5000; j++) {
+                    taskManager.getTask(taskIds.get((thread * 7 + j) % taskIds.size()));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        Set<Integer> ids = new HashSet<>();
+        for (Task task : taskManager.getHistory()) {
+            ids.add(task.getId());
+        }
+        assertEquals(taskIds.size(), taskManager.getHistory().size(), "История не обернута в потокобезопасную.");
+        assertEquals(new HashSet<>(taskIds), ids, "Неверные задачи в истории.");
+    }
+}
@@ -8,10 +8,13 @@ import task.Epic;
 import task.Subtask;
 import task.Task;
 import task.TaskStatus;
+import task.TaskType;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -31,6 +34,8 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
     @AfterEach
     public void cleanUpFile() {
         assertTrue(file.delete(), "Не удалось удалить файл.");
+        File historyFile = FileBackedTaskManager.historyFileOf(file);
+        assertTrue(!historyFile.exists() || historyFile.delete(), "Не удалось удалить файл истории.");
     }
 
     @Test
@@ -227,4 +232,93 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         assertEquals(epic1, epics.get(0), "Эпики не равны.");
         assertEquals(subtask1, subtasks.get(0), "Подзадачи не равны.");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testFBTM7_loadRecomputesEveryEpic() {
+        LocalDateTime start = LocalDateTime.of(2023, 1, 2, 9, 0);
+        final int epicCount = 100;
+        for (int i = 0; i < epicCount; i++) {
+            final int epicId = taskManager.createEpic(new Epic("epic" + i, "epic" + i, TaskStatus.NEW));
+            LocalDateTime epicStart = start.plusHours(3L * i);
+            taskManager.createSubtasks(List.of(
+                    new Subtask("subtask1", "subtask1", TaskStatus.DONE, epicId, 30, epicStart),
+                    new Subtask("subtask2", "subtask2", i % 2 == 0 ? TaskStatus.DONE : TaskStatus.NEW, epicId,
+                            30, epicStart.plusMinutes(60)),
+                    new Subtask("subtask3", "subtask3", TaskStatus.DONE, epicId)));
+        }
+
+        FileBackedTaskManager loadTaskManager = FileBackedTaskManager.loadFromFile(file);
+
+        final List<Epic> epics = loadTaskManager.getEpics();
+
+        assertEquals(epicCount, epics.size(), "Неверное количество эпиков.");
+        for (Epic epic : epics) {
+            final Epic saved = taskManager.getEpic(epic.getId());
+
+            assertEquals(3, loadTaskManager.getSubtasksFromEpic(epic.getId()).size(), "Неверные подзадачи эпика.");
+            assertEquals(saved.getStatus(), epic.getStatus(), "Неверный статус эпика.");
+            assertEquals(saved.getStartTime(), epic.getStartTime(), "Неверное время начала эпика.");
+            assertEquals(saved.getEndTime(), epic.getEndTime(), "Неверное время окончания эпика.");
+            assertEquals(saved.getDuration(), epic.getDuration(), "Неверная продолжительность эпика.");
+        }
+        assertEquals(epicCount / 2, loadTaskManager.getStatusCount(TaskType.EPIC, TaskStatus.DONE),
+                "Неверное количество завершенных эпиков.");
+        assertEquals(taskManager.getPrioritizedTasks(), loadTaskManager.getPrioritizedTasks(),
+                "Неверный список приоритетов.");
+    }
+
+    @Test
+    void testFBTM8_appendViewsToHistoryLog() throws IOException {
+        final int taskId = taskManager.createTask(new Task("task", "task", TaskStatus.NEW));
+        final int epicId = taskManager.createEpic(new Epic("epic", "epic", TaskStatus.NEW));
+        final int subtaskId = taskManager.createSubtask(new Subtask("subtask", "subtask", TaskStatus.NEW, epicId));
+        final File historyFile = FileBackedTaskManager.historyFileOf(file);
+
+        taskManager.getTask(taskId);
+        taskManager.getSubtask(subtaskId);
+        taskManager.getEpic(epicId);
+        taskManager.getTask(taskId);
+
+        List<String> lines = Files.readAllLines(historyFile.toPath());
+
+        assertEquals(List.of("", String.valueOf(taskId), String.valueOf(subtaskId), String.valueOf(epicId),
+                String.valueOf(taskId)), lines, "Неверный журнал просмотров.");
+        assertEquals(List.of(subtaskId, epicId, taskId), idsOf(FileBackedTaskManager.loadFromFile(file).getHistory()),
+                "Неверная история после загрузки журнала.");
+
+        final String tasksBefore = Files.readString(file.toPath());
+        taskManager.deleteSubtask(subtaskId);
+
+        assertEquals(lines, Files.readAllLines(historyFile.toPath()), "История переписана при изменении задач.");
+        assertTrue(Files.readString(file.toPath()).length() < tasksBefore.length(), "Задачи не сохранены.");
+        assertEquals(List.of(epicId, taskId), idsOf(FileBackedTaskManager.loadFromFile(file).getHistory()),
+                "Неверная история после удаления задачи.");
+    }
+
+    @Test
+    void testFBTM9_compactHistoryLog() throws IOException {
+        final int task1Id = taskManager.createTask(new Task("task1", "task1", TaskStatus.NEW));
+        final int task2Id = taskManager.createTask(new Task("task2", "task2", TaskStatus.NEW));
+        final File historyFile = FileBackedTaskManager.historyFileOf(file);
+
+        for (int i = 0; i < 1000; i++) {
+            taskManager.getTask(i % 2 == 0 ? task2Id : task1Id);
+        }
+
+        assertEquals(List.of(task2Id + "," + task1Id), Files.readAllLines(historyFile.toPath()),
+                "Журнал не свернут при переполнении.");
+
+        taskManager.getTask(task2Id);
+
+        assertEquals(List.of(task1Id, task2Id), idsOf(FileBackedTaskManager.loadFromFile(file).getHistory()),
+                "Неверная история после сворачивания журнала.");
+    }
+
+    private static List<Integer> idsOf(List<Task> tasks) {
+        List<Integer> ids = new ArrayList<>();
+        for (Task task : tasks) {
+            ids.add(task.getId());
+        }
+        return ids;
+    }
+}
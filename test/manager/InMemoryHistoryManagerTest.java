@@ -1,11 +1,16 @@
 package manager;
 
+import manager.memory.history.AsyncHistoryManager;
+import manager.memory.history.InMemoryHistoryManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import task.Task;
 import task.TaskStatus;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -130,4 +135,177 @@ class InMemoryHistoryManagerTest {
 
         assertTrue(history.isEmpty(), "История не пустая.");
     }
-}
\ No newline at end of file
+
+    @Test
+    void test8_evictLeastRecentlyViewed() {
+        InMemoryHistoryManager boundedHistory = (InMemoryHistoryManager) Managers.getDefaultHistory(2);
+        Task task1 = new Task("task1", "task1", TaskStatus.NEW);
+        task1.setId(1);
+        Task task2 = new Task("task2", "task2", TaskStatus.NEW);
+        task2.setId(2);
+        Task task3 = new Task("task3", "task3", TaskStatus.NEW);
+        task3.setId(3);
+
+        boundedHistory.add(task1);
+        boundedHistory.add(task2);
+        boundedHistory.add(task1);
+        boundedHistory.add(task3);
+
+        assertEquals(List.of(task1, task3), boundedHistory.getHistory(), "Вытеснена не самая старая задача.");
+        assertEquals(1, boundedHistory.getEvictedCount(), "Неверное число вытесненных задач.");
+
+        boundedHistory.remove(task1.getId());
+        boundedHistory.add(task2);
+
+        assertEquals(List.of(task3, task2), boundedHistory.getHistory(), "Неверная история после удаления.");
+        assertEquals(1, boundedHistory.getEvictedCount(), "Удаление посчитано как вытеснение.");
+        assertEquals(2, boundedHistory.size(), "Неверное число задач в истории.");
+    }
+
+    @Test
+    void test9_getHistoryPages() {
+        for (int i = 1; i <= 40; i++) {
+            Task task = new Task("task" + i, "task" + i, TaskStatus.NEW);
+            task.setId(i);
+            historyManager.add(task);
+        }
+        for (int i = 1; i <= 40; i += 2) {
+            historyManager.remove(i);
+        }
+        final List<Task> history = historyManager.getHistory();
+
+        final List<Task> page = historyManager.getHistory(5, 3);
+        final List<Task> recent = historyManager.getRecentHistory(2);
+
+        assertEquals(20, history.size(), "Неверное число задач в истории.");
+        assertEquals(List.of(12, 14, 16), idsOf(page), "Неверная страница истории.");
+        assertEquals(List.of(38, 40), idsOf(recent), "Неверные последние задачи истории.");
+        assertTrue(historyManager.getHistory(20, 5).isEmpty(), "Страница за концом истории не пустая.");
+        assertEquals(20, historyManager.getRecentHistory(100).size(), "Неверное число последних задач.");
+        assertThrows(UnsupportedOperationException.class, () -> page.remove(0), "Страница истории изменяемая.");
+
+        historyManager.add(page.get(0));
+        historyManager.remove(14);
+
+        assertEquals(List.of(12, 14, 16), idsOf(page), "Просмотр изменил полученную страницу.");
+        assertEquals(20, history.size(), "Просмотр изменил полученную историю.");
+        assertEquals(List.of(40, 12), idsOf(historyManager.getRecentHistory(2)),
+                "Неверные последние задачи истории.");
+    }
+
+    @Test
+    void test10_flushAsyncHistory() {
+        InMemoryHistoryManager target = new InMemoryHistoryManager();
+        HistoryManager asyncHistory = new AsyncHistoryManager(target, 8);
+        for (int i = 1; i <= 100; i++) {
+            Task task = new Task("task" + i, "task" + i, TaskStatus.NEW);
+            task.setId(i % 10 + 1);
+            asyncHistory.add(task);
+        }
+        asyncHistory.remove(1);
+
+        asyncHistory.flush();
+
+        assertEquals(9, target.size(), "Не все просмотры применены после flush.");
+        assertEquals(List.of(2, 3, 4, 5, 6, 7, 8, 9, 10), idsOf(target.getHistory()),
+                "Неверный порядок истории после flush.");
+        assertEquals(List.of(9, 10), idsOf(asyncHistory.getRecentHistory(2)),
+                "Неверные последние задачи истории.");
+    }
+
+    @Test
+    void test11_asyncHistorySurvivesErrorsAndInterrupts() {
+        InMemoryHistoryManager target = new InMemoryHistoryManager();
+        HistoryManager failing = new InMemoryHistoryManager() {
+            @Override
+            public void add(Task task) {
+                if (task.getId() == 1) {
+                    throw new AssertionError("Ошибка записи.");
+                }
+                target.add(task);
+            }
+
+            @Override
+            public List<Task> getHistory() {
+                return target.getHistory();
+            }
+        };
+        AsyncHistoryManager asyncHistory = new AsyncHistoryManager(failing, 8);
+        for (int i = 1; i <= 3; i++) {
+            Task task = new Task("task" + i, "task" + i, TaskStatus.NEW);
+            task.setId(i);
+            asyncHistory.add(task);
+        }
+
+        assertEquals(List.of(2, 3), idsOf(asyncHistory.getHistory()), "Ошибка записи остановила историю.");
+
+        Task task4 = new Task("task4", "task4", TaskStatus.NEW);
+        task4.setId(4);
+        Thread.currentThread().interrupt();
+        asyncHistory.add(task4);
+        assertTrue(Thread.interrupted(), "Флаг прерывания не восстановлен.");
+
+        asyncHistory.close();
+
+        assertEquals(List.of(2, 3, 4), idsOf(target.getHistory()), "Просмотр потерян при прерывании.");
+
+        Task task5 = new Task("task5", "task5", TaskStatus.NEW);
+        task5.setId(5);
+        asyncHistory.add(task5);
+
+        assertEquals(List.of(2, 3, 4, 5), idsOf(asyncHistory.getHistory()), "Просмотр после close потерян.");
+    }
+
+    @Test
+    void test12_pagesMatchLinkedHistory() {
+        InMemoryHistoryManager history = new InMemoryHistoryManager(300);
+        LinkedHashMap<Integer, Task> expected = new LinkedHashMap<>();
+        Random random = new Random(21);
+        for (int step = 0; step < 20_000; step++) {
+            final int id = random.nextInt(500);
+            if (random.nextInt(4) == 0) {
+                history.remove(id);
+                expected.remove(id);
+            } else {
+                Task task = new Task("task" + id, "task" + id, TaskStatus.NEW);
+                task.setId(id);
+                history.add(task);
+                expected.remove(id);
+                expected.put(id, task);
+                if (expected.size() > 300) {
+                    expected.remove(expected.keySet().iterator().next());
+                }
+            }
+            if (step % 97 == 0) {
+                final List<Integer> ids = new ArrayList<>(expected.keySet());
+                final int offset = random.nextInt(ids.size() + 1);
+                final int limit = random.nextInt(40);
+                final List<Task> page = history.getHistory(offset, limit);
+
+                assertEquals(ids.subList(offset, Math.min(ids.size(), offset + limit)), idsOf(page),
+                        "Неверная страница истории.");
+                assertEquals(ids.subList(Math.max(0, ids.size() - limit), ids.size()),
+                        idsOf(history.getRecentHistory(limit)), "Неверные последние задачи истории.");
+                assertEquals(ids, idsOf(history.getHistory()), "Неверная история.");
+
+                if (!page.isEmpty()) {
+                    final List<Integer> pageIds = idsOf(page);
+                    final Task viewed = page.get(0);
+                    history.add(viewed);
+                    expected.remove(viewed.getId());
+                    expected.put(viewed.getId(), viewed);
+
+                    assertEquals(pageIds, idsOf(page), "Просмотр изменил полученную страницу.");
+                }
+            }
+        }
+    }
+
+    private static List<Integer> idsOf(List<Task> tasks) {
+        List<Integer> ids = new ArrayList<>();
+        for (Task task : tasks) {
+            ids.add(task.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,59 @@
+package manager;
+
+import manager.memory.history.SessionHistoryManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SessionHistoryManagerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private SessionHistoryManager sessionHistory;
+
+    @BeforeEach
+    void setUp() {
+        sessionHistory = new SessionHistoryManager(3, 5, 1000, clock::get);
+    }
+
+    @Test
+    void test1_keepSeparateHistories() {
+        sessionHistory.add("alice", 1);
+        sessionHistory.add("alice", 2);
+        sessionHistory.add("bob", 2);
+        sessionHistory.add("alice", 1);
+        sessionHistory.add("alice", 3);
+        sessionHistory.add("alice", 4);
+
+        assertArrayEquals(new int[]{1, 3, 4}, sessionHistory.getHistory("alice"), "Неверная история сессии.");
+        assertArrayEquals(new int[]{2}, sessionHistory.getHistory("bob"), "Неверная история сессии.");
+        assertArrayEquals(new int[0], sessionHistory.getHistory("carol"), "История неизвестной сессии не пустая.");
+        assertEquals(4, sessionHistory.getUsedIds(), "Неверное количество id в сессиях.");
+    }
+
+    @Test
+    void test2_evictIdleAndOverBudgetSessions() {
+        sessionHistory.add("alice", 1);
+        clock.set(500);
+        sessionHistory.add("bob", 1);
+        sessionHistory.add("bob", 2);
+        clock.set(1200);
+        sessionHistory.add("carol", 1);
+
+        assertEquals(2, sessionHistory.getSessionCount(), "Простаивающая сессия не удалена.");
+        assertArrayEquals(new int[0], sessionHistory.getHistory("alice"), "Простаивающая сессия не удалена.");
+
+        sessionHistory.add("carol", 2);
+        sessionHistory.add("carol", 3);
+        sessionHistory.add("dave", 1);
+
+        assertEquals(4, sessionHistory.getUsedIds(), "Неверное количество id после удаления сессии.");
+        assertArrayEquals(new int[0], sessionHistory.getHistory("bob"), "Не удалена самая давняя сессия.");
+        assertArrayEquals(new int[]{1, 2, 3}, sessionHistory.getHistory("carol"), "Неверная история сессии.");
+        assertEquals(2, sessionHistory.getEvictedSessions(), "Неверное количество удаленных сессий.");
+    }
+}
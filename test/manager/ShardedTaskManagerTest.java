@@ -0,0 +1,224 @@
+package manager;
+
+import manager.memory.ShardedTaskManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardedTaskManagerTest extends TaskManagerTest<ShardedTaskManager> {
+
+    private static final int SHARDS = 4;
+
+    @BeforeEach
+    public void setUp() {
+        taskManager = new ShardedTaskManager(SHARDS);
+    }
+
+    @Test
+    void testShardedTM1_subtasksStayInEpicShard() {
+        Epic epic1 = new Epic("epic1", "epic1", TaskStatus.NEW);
+        final int epicId1 = taskManager.createEpic(epic1);
+        Epic epic2 = new Epic("epic2", "epic2", TaskStatus.NEW);
+        final int epicId2 = taskManager.createEpic(epic2);
+        final int subtaskId = taskManager.createSubtask(new Subtask("subtask", "subtask", TaskStatus.DONE, epicId1));
+
+        assertNotEquals(epicId1 % SHARDS, epicId2 % SHARDS, "Эпики попали в один раздел.");
+        assertEquals(epicId1 % SHARDS, subtaskId % SHARDS, "Подзадача не в разделе своего эпика.");
+        assertEquals(TaskStatus.DONE, taskManager.getEpic(epicId1).getStatus(), "Неправильный статус эпика.");
+
+        Subtask moved = new Subtask("subtask", "subtask", TaskStatus.DONE, epicId2);
+        moved.setId(subtaskId);
+
+        assertEquals(subtaskId, taskManager.updateSubtask(moved), "Подзадача не перенесена.");
+        assertEquals(moved, taskManager.getSubtask(subtaskId), "Перенесенная подзадача не находится по id.");
+        assertEquals(List.of(moved), taskManager.getSubtasksFromEpic(epicId2), "Неверные подзадачи эпика.");
+        assertTrue(taskManager.getSubtasksFromEpic(epicId1).isEmpty(), "Подзадача осталась в прежнем эпике.");
+        assertEquals(TaskStatus.NEW, epic1.getStatus(), "Неправильный статус эпика.");
+        assertEquals(TaskStatus.DONE, epic2.getStatus(), "Неправильный статус эпика.");
+
+        taskManager.deleteSubtask(subtaskId);
+
+        assertNull(taskManager.getSubtask(subtaskId), "Перенесенная подзадача не удалена.");
+        assertEquals(TaskStatus.NEW, epic2.getStatus(), "Неправильный статус эпика.");
+    }
+
+    @Test
+    void testShardedTM4_forgetSubtasksRelocatedIntoDeletedEpic() {
+        final int epicId1 = taskManager.createEpic(new Epic("epic1", "epic1", TaskStatus.NEW));
+        final int epicId2 = taskManager.createEpic(new Epic("epic2", "epic2", TaskStatus.NEW));
+        final int epicId3 = taskManager.createEpic(new Epic("epic3", "epic3", TaskStatus.NEW));
+        final int subtaskId1 = taskManager.createSubtask(new Subtask("subtask1", "subtask1", TaskStatus.NEW,
+                epicId1));
+        final int subtaskId2 = taskManager.createSubtask(new Subtask("subtask2", "subtask2", TaskStatus.NEW,
+                epicId1));
+
+        Subtask moved1 = new Subtask("subtask1", "subtask1", TaskStatus.NEW, epicId2);
+        moved1.setId(subtaskId1);
+        taskManager.updateSubtask(moved1);
+        Subtask moved2 = new Subtask("subtask2", "subtask2", TaskStatus.NEW, epicId3);
+        moved2.setId(subtaskId2);
+        taskManager.updateSubtask(moved2);
+
+        assertEquals(2, taskManager.getRelocatedCount(), "Переносы не учтены.");
+
+        taskManager.deleteEpic(epicId2);
+
+        assertEquals(1, taskManager.getRelocatedCount(), "Перенос подзадачи удаленного эпика не забыт.");
+        assertNull(taskManager.getSubtask(subtaskId1), "Подзадача удаленного эпика не удалена.");
+
+        taskManager.deleteByIds(List.of(epicId3));
+
+        assertEquals(0, taskManager.getRelocatedCount(), "Перенос подзадачи удаленного эпика не забыт.");
+        assertNull(taskManager.getSubtask(subtaskId2), "Подзадача удаленного эпика не удалена.");
+    }
+
+    /**
+     * Подзадача получает id из полосы раздела своего эпика
+     */
+    @Override
+    @Test
+    void test3_getSubtasks() {
+        Epic newEpic = new Epic("epic", "epic", TaskStatus.NEW);
+        final int epicId = taskManager.createEpic(newEpic);
+        Subtask newSubtask = new Subtask("subtask", "subtask", TaskStatus.NEW, epicId);
+        final int subtaskId = taskManager.createSubtask(newSubtask);
+
+        final Subtask savedSubtask = taskManager.getSubtask(subtaskId);
+
+        assertEquals(epicId + SHARDS, savedSubtask.getId(), "Неверно генерируется ID.");
+
+        List<Subtask> subtasks = taskManager.getSubtasks();
+
+        assertNotNull(subtasks, "Подзадачи не возвращаются");
+        assertEquals(1, subtasks.size(), "Неверное количество подзадач.");
+        assertEquals(newSubtask, subtasks.get(0), "Подзадачи не совпадают.");
+    }
+
+    /**
+     * Подзадачи получают id из полосы раздела своего эпика
+     */
+    @Override
+    @Test
+    void test38_createTasksInBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        Task existing = new Task("existing", "existing", TaskStatus.NEW, 30, now);
+        taskManager.createTask(existing);
+
+        Task task1 = new Task("task1", "task1", TaskStatus.NEW, 30, now.plusMinutes(15));
+        Task task2 = new Task("task2", "task2", TaskStatus.NEW, 60, now.plusMinutes(60));
+        Task task3 = new Task("task3", "task3", TaskStatus.NEW, 30, now.plusMinutes(90));
+        Task task4 = new Task("task4", "task4", TaskStatus.NEW);
+        Task task5 = new Task("task5", "task5", TaskStatus.NEW, 30, now.plusMinutes(30));
+
+        final List<Integer> ids = taskManager.createTasks(List.of(task3, task1, task2, task4, task5));
+
+        assertEquals(List.of(-1, -1, 2, 3, 4), ids, "Неверные id задач пакета.");
+        assertEquals(List.of(existing, task5, task2, task4), taskManager.getPrioritizedTasks(),
+                "Неверный список задач после создания пакета.");
+
+        Epic epic = new Epic("epic", "epic", TaskStatus.NEW);
+        final int epicId = taskManager.createEpic(epic);
+        Subtask subtask1 = new Subtask("subtask1", "subtask1", TaskStatus.DONE, epicId, 30, now.plusMinutes(120));
+        Subtask subtask2 = new Subtask("subtask2", "subtask2", TaskStatus.NEW, epicId, 30, now.plusMinutes(180));
+        Subtask subtask3 = new Subtask("subtask3", "subtask3", TaskStatus.NEW, 100, 30, now.plusMinutes(240));
+        Subtask subtask4 = new Subtask("subtask4", "subtask4", TaskStatus.NEW, epicId, 30, now.plusMinutes(10));
+
+        final List<Integer> subtaskIds = taskManager.createSubtasks(List.of(subtask1, subtask2, subtask3, subtask4));
+
+        assertEquals(List.of(epicId + SHARDS, epicId + 2 * SHARDS, -1, -1), subtaskIds,
+                "Неверные id подзадач пакета.");
+        assertEquals(List.of(subtask1, subtask2), taskManager.getSubtasksFromEpic(epicId),
+                "Неверный список подзадач эпика.");
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus(), "Неверный статус эпика.");
+        assertEquals(now.plusMinutes(120), epic.getStartTime(), "Неверное время начала эпика.");
+        assertEquals(now.plusMinutes(210), epic.getEndTime(), "Неверное время окончания эпика.");
+    }
+
+    @Test
+    void testShardedTM2_checkCrossingTasksAcrossShards() {
+        LocalDateTime start = LocalDateTime.of(2023, 1, 2, 9, 0);
+        final int taskId1 = taskManager.createTask(new Task("task1", "task1", TaskStatus.NEW, 60, start));
+        final int taskId2 = taskManager.createTask(new Task("task2", "task2", TaskStatus.NEW, 60,
+                start.plusMinutes(30)));
+        final int taskId3 = taskManager.createTask(new Task("task3", "task3", TaskStatus.NEW, 60,
+                start.plusMinutes(60)));
+        final List<Integer> ids = taskManager.createTasks(List.of(
+                new Task("task4", "task4", TaskStatus.NEW, 30, start.plusMinutes(90)),
+                new Task("task5", "task5", TaskStatus.NEW, 30, start.plusMinutes(120)),
+                new Task("task6", "task6", TaskStatus.NEW, 30, start.plusMinutes(130))));
+
+        assertNotEquals(-1, taskId1, "Задача не создана.");
+        assertEquals(-1, taskId2, "Создана задача, пересекающаяся с задачей другого раздела.");
+        assertNotEquals(-1, taskId3, "Задача не создана.");
+        assertEquals(-1, ids.get(0), "Создана задача пакета, пересекающаяся с задачей другого раздела.");
+        assertNotEquals(-1, ids.get(1), "Задача пакета не создана.");
+        assertEquals(-1, ids.get(2), "Создана задача, пересекающаяся с задачей того же пакета.");
+        assertEquals(List.of(taskId1, taskId3, ids.get(1)), idsOf(taskManager.getPrioritizedTasks()),
+                "Неверный порядок приоритета.");
+        assertEquals(start.plusMinutes(150), taskManager.findFreeSlot(java.time.Duration.ofMinutes(30),
+                start, start.plusDays(1)), "Неверный свободный промежуток.");
+    }
+
+    @Test
+    void testShardedTM3_createFromManyThreads() throws Exception {
+        final int threads = 8;
+        final int tasksPerThread = 500;
+        Epic epic = new Epic("epic", "epic", TaskStatus.NEW);
+        final int epicId = taskManager.createEpic(epic);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < tasksPerThread; j++) {
+                    final int taskId = taskManager.createTask(new Task("task", "task", TaskStatus.NEW));
+                    taskManager.createSubtask(new Subtask("subtask", "subtask", TaskStatus.DONE, epicId));
+                    taskManager.getTask(taskId);
+                    taskManager.getPrioritizedTasksAfter(0, 10);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        Set<Integer> ids = new HashSet<>(idsOf(taskManager.getTasks()));
+        for (Subtask subtask : taskManager.getSubtasks()) {
+            ids.add(subtask.getId());
+        }
+
+        assertEquals(threads * tasksPerThread, taskManager.getTasks().size(), "Неверное количество задач.");
+        assertEquals(threads * tasksPerThread, taskManager.getSubtasksFromEpic(epicId).size(),
+                "Неверное количество подзадач эпика.");
+        assertEquals(2 * threads * tasksPerThread, ids.size(), "ID задач повторяются.");
+        assertEquals(TaskStatus.DONE, taskManager.getEpic(epicId).getStatus(), "Неправильный статус эпика.");
+        assertEquals(threads * tasksPerThread + 1, taskManager.getHistory().size(), "Неверный размер истории.");
+    }
+
+    private static List<Integer> idsOf(List<? extends Task> tasks) {
+        List<Integer> ids = new ArrayList<>();
+        for (Task task : tasks) {
+            ids.add(task.getId());
+        }
+        return ids;
+    }
+}
@@ -1,13 +1,24 @@
 package manager;
 
+import manager.event.TaskEvent;
+import manager.event.TaskEventType;
+import manager.memory.InMemoryTaskManager;
 import org.junit.jupiter.api.Test;
 import task.Epic;
 import task.Subtask;
 import task.Task;
 import task.TaskStatus;
+import task.TaskType;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -537,4 +548,638 @@ public abstract class TaskManagerTest<T extends TaskManager> {
 
         assertEquals(30, epic1.getDuration().toMinutes(), "Неверная продолжительность эпика.");
     }
+
+    @Test
+    void test31_checkCrossingTasksByEndAndContainment() {
+        LocalDateTime now = LocalDateTime.now();
+        Task task1 = new Task("task1", "task1", TaskStatus.NEW, 60, now.plusMinutes(60));
+        taskManager.createTask(task1);
+
+        Task task2 = new Task("task2", "task2", TaskStatus.NEW, 60, now.plusMinutes(30));
+        assertEquals(-1, taskManager.createTask(task2), "Пересечение по окончанию не обнаружено.");
+
+        Task task3 = new Task("task3", "task3", TaskStatus.NEW, 180, now);
+        assertEquals(-1, taskManager.createTask(task3), "Пересечение с вложенной задачей не обнаружено.");
+
+        Epic epic = new Epic("epic", "epic", TaskStatus.NEW);
+        final int epicId = taskManager.createEpic(epic);
+        Subtask subtask1 = new Subtask("subtask1", "subtask1", TaskStatus.NEW, epicId,
+                30, now.plusMinutes(70));
+        assertEquals(-1, taskManager.createSubtask(subtask1), "Пересечение внутри задачи не обнаружено.");
+
+        Task task4 = new Task("task4", "task4", TaskStatus.NEW, 60, now);
+        assertTrue(taskManager.createTask(task4) > 0, "Задача, примыкающая по времени, не создана.");
+
+        Subtask subtask2 = new Subtask("subtask2", "subtask2", TaskStatus.NEW, epicId,
+                30, now.plusMinutes(120));
+        assertTrue(taskManager.createSubtask(subtask2) > 0, "Подзадача, примыкающая по времени, не создана.");
+
+        taskManager.deleteTask(task1.getId());
+
+        Task task5 = new Task("task5", "task5", TaskStatus.NEW, 60, now.plusMinutes(60));
+        assertTrue(taskManager.createTask(task5) > 0, "Время удаленной задачи не освободилось.");
+    }
+
+    @Test
+    void test32_getSubtasksFromEpicAfterChanges() {
+        Epic epic1 = new Epic("epic1", "epic1", TaskStatus.NEW);
+        final int epicId1 = taskManager.createEpic(epic1);
+        Epic epic2 = new Epic("epic2", "epic2", TaskStatus.NEW);
+        final int epicId2 = taskManager.createEpic(epic2);
+
+        Subtask subtask1 = new Subtask("subtask1", "subtask1", TaskStatus.NEW, epicId1);
+        final int subtaskId1 = taskManager.createSubtask(subtask1);
+        Subtask subtask2 = new Subtask("subtask2", "subtask2", TaskStatus.NEW, epicId1);
+        final int subtaskId2 = taskManager.createSubtask(subtask2);
+        Subtask subtask3 = new Subtask("subtask3", "subtask3", TaskStatus.NEW, epicId2);
+        taskManager.createSubtask(subtask3);
+
+        assertEquals(List.of(subtask1, subtask2), taskManager.getSubtasksFromEpic(epicId1),
+                "Неверный список подзадач эпика.");
+        assertEquals(List.of(subtask3), taskManager.getSubtasksFromEpic(epicId2),
+                "Неверный список подзадач эпика.");
+
+        Subtask newSubtask1 = new Subtask("newSubtask1", "newSubtask1", TaskStatus.DONE, epicId1);
+        newSubtask1.setId(subtaskId1);
+        taskManager.updateSubtask(newSubtask1);
+        taskManager.deleteSubtask(subtaskId2);
+
+        assertEquals(List.of(newSubtask1), taskManager.getSubtasksFromEpic(epicId1),
+                "Индекс подзадач эпика не обновился.");
+
+        taskManager.deleteEpic(epicId1);
+
+        assertTrue(taskManager.getSubtasksFromEpic(epicId1).isEmpty(), "Подзадачи удаленного эпика найдены.");
+        assertEquals(1, taskManager.getSubtasks().size(), "Неверное количество подзадач.");
+    }
+
+    @Test
+    void test33_updateEpicStatusOnSubtaskTransitions() {
+        Epic epic = new Epic("epic", "epic", TaskStatus.NEW);
+        final int epicId = taskManager.createEpic(epic);
+
+        Subtask subtask1 = new Subtask("subtask1", "subtask1", TaskStatus.NEW, epicId);
+        final int subtaskId1 = taskManager.createSubtask(subtask1);
+        Subtask subtask2 = new Subtask("subtask2", "subtask2", TaskStatus.DONE, epicId);
+        final int subtaskId2 = taskManager.createSubtask(subtask2);
+
+        assertEquals(TaskStatus.IN_PROGRESS, taskManager.getEpic(epicId).getStatus(), "Неправильный статус эпика.");
+
+        Subtask newSubtask1 = new Subtask("subtask1", "subtask1", TaskStatus.DONE, epicId);
+        newSubtask1.setId(subtaskId1);
+        taskManager.updateSubtask(newSubtask1);
+
+        assertEquals(TaskStatus.DONE, taskManager.getEpic(epicId).getStatus(), "Неправильный статус эпика.");
+
+        Subtask newSubtask2 = new Subtask("subtask2", "subtask2", TaskStatus.NEW, epicId);
+        newSubtask2.setId(subtaskId2);
+        taskManager.updateSubtask(newSubtask2);
+        taskManager.deleteSubtask(subtaskId1);
+
+        assertEquals(TaskStatus.NEW, taskManager.getEpic(epicId).getStatus(), "Неправильный статус эпика.");
+        assertEquals(InMemoryTaskManager.calculateStatus(taskManager.getSubtasksFromEpic(epicId)),
+                taskManager.getEpic(epicId).getStatus(), "Статус эпика не совпадает с пересчитанным.");
+    }
+
+    @Test
+    void test34_updateEpicTimeOnSubtaskChanges() {
+        LocalDateTime now = LocalDateTime.now();
+        Epic epic = new Epic("epic", "epic", TaskStatus.NEW);
+        final int epicId = taskManager.createEpic(epic);
+
+        Subtask subtask1 = new Subtask("subtask1", "subtask1", TaskStatus.NEW, epicId, 30, now);
+        final int subtaskId1 = taskManager.createSubtask(subtask1);
+        Subtask subtask2 = new Subtask("subtask2", "subtask2", TaskStatus.NEW, epicId, 60, now.plusMinutes(120));
+        final int subtaskId2 = taskManager.createSubtask(subtask2);
+
+        assertEquals(now, epic.getStartTime(), "Неверное время начала эпика.");
+        assertEquals(now.plusMinutes(180), epic.getEndTime(), "Неверное время окончания эпика.");
+        assertEquals(90, epic.getDuration().toMinutes(), "Неверная продолжительность эпика.");
+
+        Subtask newSubtask1 = new Subtask("subtask1", "subtask1", TaskStatus.NEW, epicId, 30, now.plusMinutes(300));
+        newSubtask1.setId(subtaskId1);
+        taskManager.updateSubtask(newSubtask1);
+
+        assertEquals(now.plusMinutes(120), epic.getStartTime(), "Неверное время начала эпика.");
+        assertEquals(now.plusMinutes(330), epic.getEndTime(), "Неверное время окончания эпика.");
+        assertEquals(epic, taskManager.getPrioritizedTasks().get(0), "Эпик не переставлен в списке приоритетов.");
+        assertEquals(3, taskManager.getPrioritizedTasks().size(), "Неверное количество задач.");
+
+        taskManager.deleteSubtask(subtaskId2);
+
+        assertEquals(now.plusMinutes(300), epic.getStartTime(), "Неверное время начала эпика.");
+        assertEquals(30, epic.getDuration().toMinutes(), "Неверная продолжительность эпика.");
+
+        taskManager.deleteSubtask(subtaskId1);
+
+        assertNull(epic.getStartTime(), "Время начала эпика без подзадач не сброшено.");
+        assertNull(epic.getDuration(), "Продолжительность эпика без подзадач не сброшена.");
+    }
+
+    @Test
+    void test35_getPrioritizedTasksAfterDeletingByType() {
+        LocalDateTime now = LocalDateTime.now();
+        Task task1 = new Task("task1", "task1", TaskStatus.NEW, 30, now);
+        taskManager.createTask(task1);
+        Epic epic = new Epic("epic", "epic", TaskStatus.NEW);
+        final int epicId = taskManager.createEpic(epic);
+        Subtask subtask1 = new Subtask("subtask1", "subtask1", TaskStatus.NEW, epicId, 30, now.plusMinutes(60));
+        taskManager.createSubtask(subtask1);
+        Task task2 = new Task("task2", "task2", TaskStatus.NEW, 30, now.plusMinutes(120));
+        taskManager.createTask(task2);
+
+        assertEquals(List.of(task1, epic, subtask1, task2), taskManager.getPrioritizedTasks(),
+                "Неверный порядок задач в списке.");
+
+        taskManager.deleteTasks();
+
+        assertEquals(List.of(epic, subtask1), taskManager.getPrioritizedTasks(),
+                "Неверный список задач после удаления всех задач.");
+
+        taskManager.deleteSubtasks();
+
+        assertEquals(List.of(epic), taskManager.getPrioritizedTasks(),
+                "Неверный список задач после удаления всех подзадач.");
+
+        Task task3 = new Task("task3", "task3", TaskStatus.NEW, 30, now.plusMinutes(60));
+        assertTrue(taskManager.createTask(task3) > 0, "Время удаленной подзадачи не освободилось.");
+    }
+
+    @Test
+    void test36_getTasksReturnsPublishedSnapshot() {
+        Task task1 = new Task("task1", "task1", TaskStatus.NEW);
+        taskManager.createTask(task1);
+
+        final List<Task> tasks = taskManager.getTasks();
+        final List<Task> prioritizedTasks = taskManager.getPrioritizedTasks();
+
+        assertSame(tasks, taskManager.getTasks(), "Список задач копируется при каждом чтении.");
+        assertSame(prioritizedTasks, taskManager.getPrioritizedTasks(), "Список приоритетов копируется при каждом чтении.");
+        assertThrows(UnsupportedOperationException.class, () -> tasks.add(task1), "Список задач изменяемый.");
+
+        Task task2 = new Task("task2", "task2", TaskStatus.NEW);
+        taskManager.createTask(task2);
+
+        assertEquals(1, tasks.size(), "Изменился ранее полученный список задач.");
+        assertEquals(2, taskManager.getTasks().size(), "Неверное количество задач.");
+        assertEquals(2, taskManager.getPrioritizedTasks().size(), "Неверное количество задач.");
+    }
+
+    @Test
+    void test37_getByIdReturnsAnyTypeWithoutHistory() {
+        Task task = new Task("task", "task", TaskStatus.NEW);
+        final int taskId = taskManager.createTask(task);
+        Epic epic = new Epic("epic", "epic", TaskStatus.NEW);
+        final int epicId = taskManager.createEpic(epic);
+        Subtask subtask = new Subtask("subtask", "subtask", TaskStatus.NEW, epicId);
+        final int subtaskId = taskManager.createSubtask(subtask);
+
+        assertEquals(task, taskManager.getById(taskId), "Задача не найдена по id.");
+        assertEquals(epic, taskManager.getById(epicId), "Эпик не найден по id.");
+        assertEquals(subtask, taskManager.getById(subtaskId), "Подзадача не найдена по id.");
+        assertEquals(TaskType.SUBTASK, taskManager.getById(subtaskId).getType(), "Неверный тип задачи.");
+        assertTrue(taskManager.getHistory().isEmpty(), "Поиск по id изменил историю.");
+
+        taskManager.deleteEpic(epicId);
+
+        assertNull(taskManager.getById(epicId), "Удаленный эпик найден по id.");
+        assertNull(taskManager.getById(subtaskId), "Подзадача удаленного эпика найдена по id.");
+
+        taskManager.deleteTasks();
+
+        assertNull(taskManager.getById(taskId), "Удаленная задача найдена по id.");
+    }
+
+    @Test
+    void test38_createTasksInBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        Task existing = new Task("existing", "existing", TaskStatus.NEW, 30, now);
+        taskManager.createTask(existing);
+
+        Task task1 = new Task("task1", "task1", TaskStatus.NEW, 30, now.plusMinutes(15));
+        Task task2 = new Task("task2", "task2", TaskStatus.NEW, 60, now.plusMinutes(60));
+        Task task3 = new Task("task3", "task3", TaskStatus.NEW, 30, now.plusMinutes(90));
+        Task task4 = new Task("task4", "task4", TaskStatus.NEW);
+        Task task5 = new Task("task5", "task5", TaskStatus.NEW, 30, now.plusMinutes(30));
+
+        final List<Integer> ids = taskManager.createTasks(List.of(task3, task1, task2, task4, task5));
+
+        assertEquals(List.of(-1, -1, 2, 3, 4), ids, "Неверные id задач пакета.");
+        assertEquals(List.of(existing, task5, task2, task4), taskManager.getPrioritizedTasks(),
+                "Неверный список задач после создания пакета.");
+
+        Epic epic = new Epic("epic", "epic", TaskStatus.NEW);
+        final int epicId = taskManager.createEpic(epic);
+        Subtask subtask1 = new Subtask("subtask1", "subtask1", TaskStatus.DONE, epicId, 30, now.plusMinutes(120));
+        Subtask subtask2 = new Subtask("subtask2", "subtask2", TaskStatus.NEW, epicId, 30, now.plusMinutes(180));
+        Subtask subtask3 = new Subtask("subtask3", "subtask3", TaskStatus.NEW, 100, 30, now.plusMinutes(240));
+        Subtask subtask4 = new Subtask("subtask4", "subtask4", TaskStatus.NEW, epicId, 30, now.plusMinutes(10));
+
+        final List<Integer> subtaskIds = taskManager.createSubtasks(List.of(subtask1, subtask2, subtask3, subtask4));
+
+        assertEquals(List.of(6, 7, -1, -1), subtaskIds, "Неверные id подзадач пакета.");
+        assertEquals(List.of(subtask1, subtask2), taskManager.getSubtasksFromEpic(epicId),
+                "Неверный список подзадач эпика.");
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus(), "Неверный статус эпика.");
+        assertEquals(now.plusMinutes(120), epic.getStartTime(), "Неверное время начала эпика.");
+        assertEquals(now.plusMinutes(210), epic.getEndTime(), "Неверное время окончания эпика.");
+    }
+
+    @Test
+    void test39_updateAndDeleteInBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        Epic epic1 = new Epic("epic1", "epic1", TaskStatus.NEW);
+        final int epicId1 = taskManager.createEpic(epic1);
+        Epic epic2 = new Epic("epic2", "epic2", TaskStatus.NEW);
+        final int epicId2 = taskManager.createEpic(epic2);
+        Subtask subtask1 = new Subtask("subtask1", "subtask1", TaskStatus.NEW, epicId1, 30, now);
+        Subtask subtask2 = new Subtask("subtask2", "subtask2", TaskStatus.NEW, epicId1, 30, now.plusMinutes(60));
+        final List<Integer> subtaskIds = taskManager.createSubtasks(List.of(subtask1, subtask2));
+        Task task = new Task("task", "task", TaskStatus.NEW);
+        final int taskId = taskManager.createTask(task);
+
+        Subtask updated1 = new Subtask("subtask1", "subtask1", TaskStatus.DONE, epicId1, 30, now);
+        updated1.setId(subtaskIds.get(0));
+        Subtask updated2 = new Subtask("subtask2", "subtask2", TaskStatus.DONE, epicId2, 30, now.plusMinutes(60));
+        updated2.setId(subtaskIds.get(1));
+
+        assertEquals(subtaskIds, taskManager.updateSubtasks(List.of(updated1, updated2)),
+                "Неверные id обновленных подзадач.");
+        assertEquals(List.of(updated1), taskManager.getSubtasksFromEpic(epicId1), "Неверные подзадачи эпика.");
+        assertEquals(List.of(updated2), taskManager.getSubtasksFromEpic(epicId2), "Неверные подзадачи эпика.");
+        assertEquals(TaskStatus.DONE, epic1.getStatus(), "Неверный статус эпика.");
+        assertEquals(now.plusMinutes(30), epic1.getEndTime(), "Неверное время окончания эпика.");
+        assertEquals(TaskStatus.DONE, epic2.getStatus(), "Неверный статус эпика.");
+
+        taskManager.deleteByIds(List.of(taskId, subtaskIds.get(0), epicId2, 100));
+
+        assertTrue(taskManager.getTasks().isEmpty(), "Задача не удалена.");
+        assertEquals(List.of(epic1), taskManager.getEpics(), "Неверный список эпиков.");
+        assertTrue(taskManager.getSubtasks().isEmpty(), "Подзадачи не удалены.");
+        assertEquals(TaskStatus.NEW, epic1.getStatus(), "Неверный статус эпика без подзадач.");
+        assertNull(epic1.getStartTime(), "Время начала эпика без подзадач не сброшено.");
+    }
+
+    @Test
+    void test40_getPrioritizedTasksBetweenAndAfter() {
+        LocalDateTime now = LocalDateTime.of(2023, 1, 2, 10, 0);
+        Task task1 = new Task("task1", "task1", TaskStatus.NEW, 30, now);
+        taskManager.createTask(task1);
+        Epic epic = new Epic("epic", "epic", TaskStatus.NEW);
+        final int epicId = taskManager.createEpic(epic);
+        Subtask subtask1 = new Subtask("subtask1", "subtask1", TaskStatus.NEW, epicId, 30, now.plusDays(1));
+        taskManager.createSubtask(subtask1);
+        Task task2 = new Task("task2", "task2", TaskStatus.NEW, 30, now.plusDays(7));
+        taskManager.createTask(task2);
+        Task task3 = new Task("task3", "task3", TaskStatus.NEW);
+        taskManager.createTask(task3);
+
+        assertEquals(List.of(task1, epic, subtask1),
+                taskManager.getPrioritizedTasksBetween(now, now.plusDays(7)), "Неверный список задач за период.");
+        assertEquals(List.of(epic, subtask1),
+                taskManager.getPrioritizedTasksBetween(now.plusMinutes(1), now.plusDays(2)),
+                "Неверный список задач за период.");
+        assertTrue(taskManager.getPrioritizedTasksBetween(now.plusDays(7), now).isEmpty(),
+                "Неверный список задач за пустой период.");
+
+        final List<Task> page1 = taskManager.getPrioritizedTasksAfter(0, 2);
+        assertEquals(List.of(task1, epic), page1, "Неверная первая страница.");
+        final List<Task> page2 = taskManager.getPrioritizedTasksAfter(page1.get(1).getId(), 2);
+        assertEquals(List.of(subtask1, task2), page2, "Неверная вторая страница.");
+        final List<Task> page3 = taskManager.getPrioritizedTasksAfter(page2.get(1).getId(), 2);
+        assertEquals(List.of(task3), page3, "Неверная последняя страница.");
+        assertTrue(taskManager.getPrioritizedTasksAfter(100, 2).isEmpty(), "Страница после несуществующей задачи.");
+    }
+
+    @Test
+    void test41_getTasksByStatus() {
+        Task task1 = new Task("task1", "task1", TaskStatus.IN_PROGRESS);
+        final int task1Id = taskManager.createTask(task1);
+        Task task2 = new Task("task2", "task2", TaskStatus.NEW);
+        taskManager.createTask(task2);
+        Epic epic = new Epic("epic", "epic", TaskStatus.NEW);
+        final int epicId = taskManager.createEpic(epic);
+        Subtask subtask1 = new Subtask("subtask1", "subtask1", TaskStatus.DONE, epicId);
+        final int subtask1Id = taskManager.createSubtask(subtask1);
+        Subtask subtask2 = new Subtask("subtask2", "subtask2", TaskStatus.NEW, epicId);
+        taskManager.createSubtask(subtask2);
+
+        assertEquals(List.of(task1, epic), taskManager.getTasksByStatus(TaskStatus.IN_PROGRESS),
+                "Неверный список задач в работе.");
+        assertEquals(List.of(subtask1), taskManager.getTasksByStatus(TaskType.SUBTASK, TaskStatus.DONE),
+                "Неверный список завершенных подзадач.");
+        assertEquals(1, taskManager.getStatusCount(TaskType.EPIC, TaskStatus.IN_PROGRESS),
+                "Неверное количество эпиков в работе.");
+
+        Task updatedTask1 = new Task("task1", "task1", TaskStatus.DONE);
+        updatedTask1.setId(task1Id);
+        taskManager.updateTask(updatedTask1);
+        taskManager.deleteSubtask(subtask1Id);
+
+        assertTrue(taskManager.getTasksByStatus(TaskStatus.IN_PROGRESS).isEmpty(), "Неверный список задач в работе.");
+        assertEquals(List.of(updatedTask1), taskManager.getTasksByStatus(TaskStatus.DONE),
+                "Неверный список завершенных задач.");
+        assertEquals(1, taskManager.getStatusCount(TaskType.EPIC, TaskStatus.NEW), "Неверное количество новых эпиков.");
+
+        taskManager.deleteSubtasks();
+
+        assertEquals(0, taskManager.getStatusCount(TaskType.SUBTASK, TaskStatus.NEW),
+                "Неверное количество новых подзадач.");
+        assertEquals(List.of(task2, epic), taskManager.getTasksByStatus(TaskStatus.NEW), "Неверный список новых задач.");
+
+        taskManager.deleteEpics();
+        taskManager.deleteTasks();
+
+        for (TaskStatus status : TaskStatus.values()) {
+            assertTrue(taskManager.getTasksByStatus(status).isEmpty(), "Индекс статусов не очищен.");
+        }
+    }
+
+    @Test
+    void test42_searchByNameAndDescription() {
+        Task task1 = new Task("Купить молоко", "зайти в магазин после работы", TaskStatus.NEW);
+        final int task1Id = taskManager.createTask(task1);
+        Task task2 = new Task("Магазин", "купить хлеб", TaskStatus.NEW);
+        taskManager.createTask(task2);
+        Epic epic = new Epic("Переезд", "собрать вещи, купить коробки", TaskStatus.NEW);
+        final int epicId = taskManager.createEpic(epic);
+        Subtask subtask = new Subtask("Коробки", "заказать в магазине", TaskStatus.NEW, epicId);
+        taskManager.createSubtask(subtask);
+
+        assertEquals(List.of(task1, task2, epic), taskManager.search("купить", 10),
+                "Неверный результат поиска по слову.");
+        assertEquals(List.of(task2, task1, subtask), taskManager.search("маг", 10),
+                "Неверный результат поиска по началу слова.");
+        assertEquals(List.of(task1, task2), taskManager.search("купить магаз", 10),
+                "Неверный результат поиска по нескольким словам.");
+        assertEquals(List.of(task1), taskManager.search("купить магаз", 1), "Неверный результат с ограничением.");
+        assertTrue(taskManager.search("самолет", 10).isEmpty(), "Найдены задачи без слова из запроса.");
+
+        Task updatedTask1 = new Task("Купить кефир", "", TaskStatus.NEW);
+        updatedTask1.setId(task1Id);
+        taskManager.updateTask(updatedTask1);
+
+        assertEquals(List.of(task2, subtask), taskManager.search("магазин", 10),
+                "Поиск по старому описанию задачи.");
+
+        taskManager.deleteEpics();
+
+        assertEquals(List.of(updatedTask1, task2), taskManager.search("купить", 10),
+                "Найдены удаленные задачи.");
+    }
+
+    @Test
+    void test43_findFreeSlot() {
+        LocalDateTime start = LocalDateTime.of(2023, 1, 2, 9, 0);
+        Task task1 = new Task("task1", "task1", TaskStatus.NEW, 60, start);
+        taskManager.createTask(task1);
+        Epic epic = new Epic("epic", "epic", TaskStatus.NEW);
+        final int epicId = taskManager.createEpic(epic);
+        Subtask subtask1 = new Subtask("subtask1", "subtask1", TaskStatus.NEW, epicId, 30, start.plusMinutes(90));
+        final int subtask1Id = taskManager.createSubtask(subtask1);
+        Task task2 = new Task("task2", "task2", TaskStatus.NEW, 60, start.plusMinutes(180));
+        taskManager.createTask(task2);
+
+        assertEquals(start.plusMinutes(60), taskManager.findFreeSlot(Duration.ofMinutes(30), start, start.plusDays(1)),
+                "Неверное время первого свободного промежутка.");
+        assertEquals(start.plusMinutes(120), taskManager.findFreeSlot(Duration.ofMinutes(60), start, start.plusDays(1)),
+                "Неверное время свободного промежутка длиной в час.");
+        assertEquals(start.plusMinutes(240), taskManager.findFreeSlot(Duration.ofMinutes(90), start, start.plusDays(1)),
+                "Неверное время свободного промежутка после всех задач.");
+        assertNull(taskManager.findFreeSlot(Duration.ofMinutes(90), start, start.plusMinutes(300)),
+                "Найден промежуток, выходящий за интервал поиска.");
+        assertEquals(start.minusMinutes(30), taskManager.findFreeSlot(Duration.ofMinutes(30),
+                start.minusMinutes(30), start.plusDays(1)), "Неверное время промежутка перед задачами.");
+
+        taskManager.deleteSubtask(subtask1Id);
+
+        assertEquals(start.plusMinutes(60), taskManager.findFreeSlot(Duration.ofMinutes(120), start, start.plusDays(1)),
+                "Время удаленной подзадачи не освободилось.");
+
+        Task task3 = new Task("task3", "task3", TaskStatus.NEW, 120,
+                taskManager.findFreeSlot(Duration.ofMinutes(120), start, start.plusDays(1)));
+        assertTrue(taskManager.createTask(task3) > 0, "Задача не создана в найденное свободное время.");
+
+        taskManager.deleteTasks();
+
+        assertEquals(start, taskManager.findFreeSlot(Duration.ofMinutes(120), start, start.plusDays(1)),
+                "Время удаленных задач не освободилось.");
+    }
+
+    @Test
+    void test44_getUtilizationAndHeatmap() {
+        LocalDateTime start = LocalDateTime.of(2023, 1, 2, 9, 0);
+        Task task1 = new Task("task1", "task1", TaskStatus.NEW, 60, start);
+        taskManager.createTask(task1);
+        Epic epic = new Epic("epic", "epic", TaskStatus.NEW);
+        final int epicId = taskManager.createEpic(epic);
+        Subtask subtask1 = new Subtask("subtask1", "subtask1", TaskStatus.NEW, epicId, 20, start.plusMinutes(65));
+        final int subtask1Id = taskManager.createSubtask(subtask1);
+        Task task2 = new Task("task2", "task2", TaskStatus.NEW, 120, start.plusHours(14));
+        taskManager.createTask(task2);
+
+        assertEquals(0.75, taskManager.getUtilization(start, start.plusHours(2)), 1e-9,
+                "Неверная загрузка за два часа.");
+        assertEquals(10.0 / 96, taskManager.getUtilization(start.toLocalDate().atStartOfDay(),
+                start.toLocalDate().plusDays(1).atStartOfDay()), 1e-9, "Неверная загрузка за день.");
+
+        final Map<LocalDate, int[]> heatmap = taskManager.getOccupancyHeatmap(start.toLocalDate(),
+                start.toLocalDate().plusDays(1));
+
+        assertEquals(2, heatmap.size(), "Неверное количество дней в карте занятости.");
+        final int[] firstDay = heatmap.get(start.toLocalDate());
+        assertEquals(4, firstDay[9], "Неверная занятость часа.");
+        assertEquals(2, firstDay[10], "Неверная занятость часа.");
+        assertEquals(4, firstDay[23], "Неверная занятость часа.");
+        assertEquals(4, heatmap.get(start.toLocalDate().plusDays(1))[0], "Неверная занятость часа после полуночи.");
+
+        taskManager.deleteSubtask(subtask1Id);
+
+        assertEquals(0, taskManager.getOccupancyHeatmap(start.toLocalDate(), start.toLocalDate()).get(
+                start.toLocalDate())[10], "Время удаленной подзадачи не освободилось.");
+
+        taskManager.deleteTasks();
+
+        assertEquals(0, taskManager.getUtilization(start, start.plusDays(2)), 1e-9,
+                "Время удаленных задач не освободилось.");
+    }
+
+    @Test
+    void test45_publishChangeEvents() throws InterruptedException {
+        final List<TaskEvent> events = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch delivered = new CountDownLatch(7);
+        taskManager.subscribe(event -> {
+            events.add(event);
+            delivered.countDown();
+        });
+
+        Task task = new Task("task", "task", TaskStatus.NEW);
+        final int taskId = taskManager.createTask(task);
+        Epic epic = new Epic("epic", "epic", TaskStatus.NEW);
+        final int epicId = taskManager.createEpic(epic);
+        Subtask subtask = new Subtask("subtask", "subtask", TaskStatus.NEW, epicId);
+        final int subtaskId = taskManager.createSubtask(subtask);
+        Task updatedTask = new Task("task", "new description", TaskStatus.DONE);
+        updatedTask.setId(taskId);
+        taskManager.updateTask(updatedTask);
+        taskManager.deleteEpic(epicId);
+        taskManager.deleteTasks();
+
+        assertTrue(delivered.await(5, TimeUnit.SECONDS), "События не доставлены.");
+        assertEquals(7, events.size(), "Неверное количество событий.");
+        assertEquals(TaskEventType.CREATED, events.get(0).getType(), "Неверный тип события.");
+        assertNull(events.get(0).getBefore(), "У созданной задачи нет прежней версии.");
+        assertEquals(task, events.get(0).getAfter(), "Неверная задача в событии.");
+        assertEquals(epicId, events.get(1).getId(), "Неверный id в событии.");
+        assertEquals(subtaskId, events.get(2).getId(), "Неверный id в событии.");
+        assertEquals(TaskEventType.UPDATED, events.get(3).getType(), "Неверный тип события.");
+        assertEquals(task, events.get(3).getBefore(), "Неверная прежняя версия задачи.");
+        assertEquals(updatedTask, events.get(3).getAfter(), "Неверная новая версия задачи.");
+        assertEquals(TaskEventType.DELETED, events.get(4).getType(), "Неверный тип события.");
+        assertEquals(subtaskId, events.get(4).getId(), "Подзадача эпика не удалена первой.");
+        assertEquals(epicId, events.get(5).getId(), "Неверный id в событии.");
+        assertEquals(updatedTask, events.get(6).getBefore(), "Неверная удаленная задача.");
+        assertNull(events.get(6).getAfter(), "У удаленной задачи нет новой версии.");
+        for (int i = 1; i < events.size(); i++) {
+            assertTrue(events.get(i - 1).getVersion() < events.get(i).getVersion(), "Версии событий не возрастают.");
+        }
+    }
+
+    @Test
+    void test46_updateSubtaskChangedInPlace() {
+        Epic epic = new Epic("epic", "epic", TaskStatus.NEW);
+        final int epicId = taskManager.createEpic(epic);
+        Subtask subtask1 = new Subtask("subtask1", "subtask1", TaskStatus.NEW, epicId);
+        taskManager.createSubtask(subtask1);
+        Subtask subtask2 = new Subtask("subtask2", "subtask2", TaskStatus.DONE, epicId);
+        taskManager.createSubtask(subtask2);
+
+        subtask1.setStatus(TaskStatus.DONE);
+        taskManager.updateSubtask(subtask1);
+
+        assertEquals(TaskStatus.DONE, taskManager.getEpic(epicId).getStatus(), "Неправильный статус эпика.");
+
+        subtask1.setStatus(TaskStatus.NEW);
+        subtask2.setStatus(TaskStatus.NEW);
+        taskManager.updateSubtasks(List.of(subtask1, subtask2));
+
+        assertEquals(TaskStatus.NEW, taskManager.getEpic(epicId).getStatus(), "Неправильный статус эпика.");
+        assertEquals(2, taskManager.getStatusCount(TaskType.SUBTASK, TaskStatus.NEW),
+                "Неверное количество новых подзадач.");
+    }
+
+    @Test
+    void test47_deliverEventsAfterListenerFailureAndCallback() throws InterruptedException {
+        final CountDownLatch echoed = new CountDownLatch(1);
+        taskManager.subscribe(event -> {
+            throw new AssertionError("Ошибка подписчика.");
+        });
+        taskManager.subscribe(event -> {
+            if (event.getType() != TaskEventType.CREATED) {
+                return;
+            }
+            if ("trigger".equals(event.getAfter().getName())) {
+                taskManager.createTask(new Task("echo", "echo", TaskStatus.NEW));
+            } else if ("echo".equals(event.getAfter().getName())) {
+                echoed.countDown();
+            }
+        });
+
+        taskManager.createTask(new Task("trigger", "trigger", TaskStatus.NEW));
+
+        assertTrue(echoed.await(5, TimeUnit.SECONDS), "Событие задачи, созданной подписчиком, не доставлено.");
+        assertEquals(2, taskManager.getTasks().size(), "Неверное количество задач.");
+
+        taskManager.close();
+    }
+
+    @Test
+    void test48_freeTimeOfTaskMovedInPlace() {
+        LocalDateTime start = LocalDateTime.of(2023, 1, 2, 9, 0);
+        Task task = new Task("task", "task", TaskStatus.NEW, 60, start);
+        taskManager.createTask(task);
+
+        task.setStartTime(start.plusMinutes(120));
+        taskManager.updateTask(task);
+
+        assertEquals(start, taskManager.findFreeSlot(Duration.ofMinutes(60), start, start.plusDays(1)),
+                "Прежнее время задачи не освободилось.");
+        assertEquals(start.plusMinutes(180), taskManager.findFreeSlot(Duration.ofMinutes(60), start.plusMinutes(90),
+                start.plusDays(1)), "Новое время задачи не занято.");
+    }
+
+    @Test
+    void test49_deleteTasksKeepsSubtasksTime() {
+        LocalDateTime start = LocalDateTime.of(2023, 1, 2, 9, 0);
+        taskManager.createTask(new Task("task", "task", TaskStatus.NEW, 60, start));
+        final int epicId = taskManager.createEpic(new Epic("epic", "epic", TaskStatus.NEW));
+        taskManager.createSubtask(new Subtask("subtask", "subtask", TaskStatus.NEW, epicId, 60,
+                start.plusMinutes(60)));
+
+        taskManager.deleteTasks();
+
+        assertEquals(start, taskManager.findFreeSlot(Duration.ofMinutes(60), start, start.plusDays(1)),
+                "Время удаленной задачи не освободилось.");
+        assertEquals(start.plusMinutes(120), taskManager.findFreeSlot(Duration.ofMinutes(90), start,
+                start.plusDays(1)), "Время подзадачи освободилось вместе с задачами.");
+        assertEquals(0.5, taskManager.getUtilization(start, start.plusMinutes(120)), 1e-9,
+                "Неверная занятость после удаления задач.");
+
+        taskManager.deleteSubtasks();
+
+        assertEquals(start, taskManager.findFreeSlot(Duration.ofMinutes(90), start, start.plusDays(1)),
+                "Время подзадачи не освободилось.");
+        assertEquals(0.0, taskManager.getUtilization(start, start.plusMinutes(120)), 1e-9,
+                "Занятость не очистилась.");
+    }
+
+    @Test
+    void test50_searchPrefixMatchingManyTerms() {
+        for (int i = 0; i < 100; i++) {
+            taskManager.createTask(new Task("слово" + i, "общее", TaskStatus.NEW));
+        }
+
+        assertEquals(100, taskManager.search("слово", 200).size(), "Префикс раскрылся не во все слова.");
+        assertEquals(100, taskManager.search("общее слово", 200).size(),
+                "Префикс после точного слова раскрылся не во все слова.");
+        assertEquals(10, taskManager.search("слово", 10).size(), "Неверный результат с ограничением.");
+    }
+
+    @Test
+    void test51_searchPrefixCountsTaskOnceWithBestWeight() {
+        Task task1 = new Task("Отчет", "отчетность, отчеты", TaskStatus.NEW);
+        taskManager.createTask(task1);
+        Task task2 = new Task("План", "отчет", TaskStatus.NEW);
+        taskManager.createTask(task2);
+        Task task3 = new Task("Отчеты отчеты", "", TaskStatus.NEW);
+        taskManager.createTask(task3);
+
+        assertEquals(List.of(task3, task1, task2), taskManager.search("отч", 10),
+                "Неверный порядок задач с несколькими словами по префиксу.");
+        assertEquals(List.of(task3, task1), taskManager.search("отч", 2), "Неверный результат с ограничением.");
+    }
+
+    @Test
+    void test52_epicDurationIsSumOfSubtaskDurations() {
+        LocalDateTime start = LocalDateTime.of(2023, 1, 2, 9, 0);
+        Epic epic = new Epic("epic", "epic", TaskStatus.NEW);
+        final int epicId = taskManager.createEpic(epic);
+        taskManager.createSubtask(new Subtask("subtask1", "subtask1", TaskStatus.NEW, epicId, 10, start));
+        final int subtask2Id = taskManager.createSubtask(new Subtask("subtask2", "subtask2", TaskStatus.NEW, epicId,
+                20, start.plusMinutes(60)));
+        taskManager.createSubtask(new Subtask("subtask3", "subtask3", TaskStatus.NEW, epicId, 45,
+                start.plusMinutes(180)));
+        taskManager.createSubtask(new Subtask("subtask4", "subtask4", TaskStatus.NEW, epicId));
+
+        assertEquals(Duration.ofMinutes(75), epic.getDuration(),
+                "Продолжительность эпика не равна сумме продолжительностей подзадач.");
+        assertEquals(start.plusMinutes(225), epic.getEndTime(), "Неверное время окончания эпика.");
+
+        Subtask updatedSubtask2 = new Subtask("subtask2", "subtask2", TaskStatus.NEW, epicId, 50,
+                start.plusMinutes(60));
+        updatedSubtask2.setId(subtask2Id);
+        taskManager.updateSubtask(updatedSubtask2);
+
+        assertEquals(Duration.ofMinutes(105), epic.getDuration(), "Продолжительность эпика не пересчитана.");
+    }
 }
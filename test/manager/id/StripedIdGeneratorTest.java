@@ -0,0 +1,56 @@
+package manager.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StripedIdGeneratorTest {
+
+    @Test
+    void testStriped1_stripesDoNotOverlap() {
+        final int stripes = 4;
+        Set<Integer> ids = new HashSet<>();
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            StripedIdGenerator generator = new StripedIdGenerator(stripe, stripes);
+            int last = 0;
+            for (int i = 0; i < 100; i++) {
+                final int id = generator.nextId();
+                assertTrue(id > last, "Id полосы не возрастают.");
+                assertEquals(stripe, StripedIdGenerator.stripeOf(id, stripes), "Id выдан не своей полосой.");
+                assertTrue(ids.add(id), "Id повторяется в разных полосах: " + id);
+                last = id;
+            }
+        }
+        assertEquals(stripes * 100, ids.size(), "Неверное количество id.");
+        for (int id = 1; id <= stripes * 100; id++) {
+            assertTrue(ids.contains(id), "Полосы пропустили id " + id);
+        }
+    }
+
+    @Test
+    void testStriped2_advanceToKeepsStripe() {
+        StripedIdGenerator generator = new StripedIdGenerator(1, 4);
+        assertEquals(2, generator.nextId(), "Неверный первый id полосы.");
+
+        generator.advanceTo(13);
+        assertEquals(14, generator.nextId(), "Неверный id после сдвига.");
+
+        generator.advanceTo(5);
+        assertEquals(18, generator.nextId(), "Сдвиг назад изменил генератор.");
+
+        generator.advanceTo(18);
+        assertEquals(22, generator.nextId(), "Выдан занятый id.");
+    }
+
+    @Test
+    void testStriped3_rejectWrongStripe() {
+        assertThrows(IllegalArgumentException.class, () -> new StripedIdGenerator(4, 4), "Полоса вне диапазона.");
+        assertThrows(IllegalArgumentException.class, () -> new StripedIdGenerator(-1, 4), "Отрицательная полоса.");
+        assertThrows(IllegalArgumentException.class, () -> new StripedIdGenerator(0, 0), "Нет полос.");
+    }
+}
@@ -0,0 +1,133 @@
+package manager.memory;
+
+import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+import task.TaskType;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Менеджер, восстановленный из записей через restore, должен совпадать с менеджером, в котором те же задачи
+ * созданы по одной
+ */
+class InMemoryTaskManagerRestoreTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2023, 1, 2, 0, 0);
+
+    @Test
+    void testRestore1_matchIncrementalManagerSequentially() {
+        assertRestoredLikeIncremental(20);
+    }
+
+    @Test
+    void testRestore2_matchIncrementalManagerInParallel() {
+        assertRestoredLikeIncremental(300);
+    }
+
+    private void assertRestoredLikeIncremental(int epicCount) {
+        Random random = new Random(epicCount);
+        InMemoryTaskManager incremental = new InMemoryTaskManager();
+        int slot = 0;
+        for (int i = 0; i < epicCount; i++) {
+            final int epicId = incremental.createEpic(new Epic("epic" + i, "epic " + i, TaskStatus.NEW));
+            final int subtaskCount = random.nextInt(6);
+            for (int j = 0; j < subtaskCount; j++) {
+                TaskStatus status = TaskStatus.values()[random.nextInt(TaskStatus.values().length)];
+                String name = "subtask" + i + "_" + j;
+                if (random.nextInt(3) == 0) {
+                    incremental.createSubtask(new Subtask(name, "subtask", status, epicId));
+                } else {
+                    incremental.createSubtask(new Subtask(name, "subtask", status, epicId,
+                            30 + random.nextInt(90), START.plusHours(2L * slot++)));
+                }
+            }
+            if (i % 5 == 0) {
+                incremental.createTask(new Task("task" + i, "task", TaskStatus.NEW,
+                        30 + random.nextInt(90), START.plusHours(2L * slot++)));
+            }
+        }
+
+        List<Task> records = new ArrayList<>();
+        for (Task task : incremental.getTasks()) {
+            records.add(withId(new Task(task.getName(), task.getDescription(), task.getStatus(),
+                    task.getDuration().toMinutes(), task.getStartTime()), task.getId()));
+        }
+        for (Epic epic : incremental.getEpics()) {
+            records.add(withId(new Epic(epic.getName(), epic.getDescription(), TaskStatus.NEW), epic.getId()));
+        }
+        for (Subtask subtask : incremental.getSubtasks()) {
+            Subtask record = subtask.getStartTime() == null
+                    ? new Subtask(subtask.getName(), subtask.getDescription(), subtask.getStatus(), subtask.getEpicId())
+                    : new Subtask(subtask.getName(), subtask.getDescription(), subtask.getStatus(),
+                    subtask.getEpicId(), subtask.getDuration().toMinutes(), subtask.getStartTime());
+            records.add(withId(record, subtask.getId()));
+        }
+        Collections.shuffle(records, random);
+
+        InMemoryTaskManager restored = new InMemoryTaskManager();
+        restored.restore(records);
+
+        assertEquals(new HashSet<>(incremental.getTasks()), new HashSet<>(restored.getTasks()), "Неверные задачи.");
+        assertEquals(new HashSet<>(incremental.getEpics()), new HashSet<>(restored.getEpics()), "Неверные эпики.");
+        assertEquals(new HashSet<>(incremental.getSubtasks()), new HashSet<>(restored.getSubtasks()),
+                "Неверные подзадачи.");
+        for (Epic expected : incremental.getEpics()) {
+            Epic actual = restored.getEpic(expected.getId());
+            assertEquals(expected.getStatus(), actual.getStatus(), "Неверный статус эпика " + expected.getId());
+            assertEquals(expected.getStartTime(), actual.getStartTime(), "Неверное начало эпика " + expected.getId());
+            assertEquals(expected.getEndTime(), actual.getEndTime(), "Неверный конец эпика " + expected.getId());
+            assertEquals(expected.getDuration(), actual.getDuration(),
+                    "Неверная продолжительность эпика " + expected.getId());
+            assertEquals(new HashSet<>(incremental.getSubtasksFromEpic(expected.getId())),
+                    new HashSet<>(restored.getSubtasksFromEpic(expected.getId())),
+                    "Неверные подзадачи эпика " + expected.getId());
+        }
+
+        assertEquals(incremental.getPrioritizedTasks(), restored.getPrioritizedTasks(), "Неверный список приоритетов.");
+        for (TaskType type : TaskType.values()) {
+            for (TaskStatus status : TaskStatus.values()) {
+                assertEquals(incremental.getStatusCount(type, status), restored.getStatusCount(type, status),
+                        "Неверный счетчик статуса " + type + " " + status);
+                assertEquals(new HashSet<>(incremental.getTasksByStatus(type, status)),
+                        new HashSet<>(restored.getTasksByStatus(type, status)),
+                        "Неверный индекс статуса " + type + " " + status);
+            }
+        }
+        assertEquals(incremental.search("subtask", 1000), restored.search("subtask", 1000),
+                "Неверный текстовый индекс.");
+
+        LocalDateTime end = START.plusHours(2L * slot + 24);
+        assertEquals(incremental.findFreeSlot(Duration.ofMinutes(100), START, end),
+                restored.findFreeSlot(Duration.ofMinutes(100), START, end), "Неверное свободное время.");
+        assertEquals(incremental.getUtilization(START, end), restored.getUtilization(START, end),
+                "Неверная загрузка.");
+        Map<LocalDate, int[]> expectedHeatmap = incremental.getOccupancyHeatmap(START.toLocalDate(), end.toLocalDate());
+        Map<LocalDate, int[]> actualHeatmap = restored.getOccupancyHeatmap(START.toLocalDate(), end.toLocalDate());
+        assertEquals(expectedHeatmap.keySet(), actualHeatmap.keySet(), "Неверные дни карты занятости.");
+        for (Map.Entry<LocalDate, int[]> day : expectedHeatmap.entrySet()) {
+            assertArrayEquals(day.getValue(), actualHeatmap.get(day.getKey()), "Неверная занятость " + day.getKey());
+        }
+
+        assertEquals(incremental.createTask(new Task("next", "next", TaskStatus.NEW)),
+                restored.createTask(new Task("next", "next", TaskStatus.NEW)), "Неверный следующий id.");
+    }
+
+    private static <T extends Task> T withId(T task, int id) {
+        task.setId(id);
+        return task;
+    }
+}
@@ -0,0 +1,83 @@
+package manager.memory.index;
+
+import task.Task;
+import task.TaskStatus;
+
+import java.util.Random;
+
+/**
+ * Замер времени поиска по {@link TextIndex} на 1 000 000 задач со словарем из 20 000 слов (около 250 задач
+ * на слово). Слово в названии встречается вдвое реже, чем в описании, поэтому в списках есть оба веса.
+ * Каждый запрос сначала прогревается около секунды, затем выводится среднее время одного поиска
+ * с limit = 20 за следующие две секунды.
+ * Запускать отдельно от тестов: java -cp ... manager.memory.index.TextIndexBenchmark
+ */
+public class TextIndexBenchmark {
+
+    private static final int TASKS = 1_000_000;
+
+    private static final int WORDS = 20_000;
+
+    private static final int LIMIT = 20;
+
+    private static final long WARM_UP_NANOS = 1_000_000_000L;
+
+    private static final long RUN_NANOS = 2_000_000_000L;
+
+    public static void main(String[] args) {
+        String[] words = new String[WORDS];
+        for (int i = 0; i < WORDS; i++) {
+            words[i] = word(i);
+        }
+        TextIndex index = new TextIndex();
+        Random random = new Random(13);
+        for (int id = 1; id <= TASKS; id++) {
+            Task task = new Task(words[random.nextInt(WORDS)] + " " + words[random.nextInt(WORDS)],
+                    words[random.nextInt(WORDS)] + " " + words[random.nextInt(WORDS)] + " "
+                            + words[random.nextInt(WORDS)] + " " + words[random.nextInt(WORDS)], TaskStatus.NEW);
+            task.setId(id);
+            index.add(task);
+        }
+
+        measure(index, "one word", words[19_000]);
+        measure(index, "two words", words[100] + " " + words[200]);
+        measure(index, "word plus prefix", words[100] + " " + words[200].substring(0, 2));
+        measure(index, "3-letter prefix", words[100].substring(0, 3));
+        measure(index, "2-letter prefix", words[100].substring(0, 2));
+        measure(index, "1-letter prefix", words[100].substring(0, 1));
+    }
+
+    /**
+     * @return слово из букв a..z по номеру, от трех до четырех букв
+     */
+    private static String word(int n) {
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < 3 || n > 0; i++) {
+            word.append((char) ('a' + n % 26));
+            n /= 26;
+        }
+        return word.toString();
+    }
+
+    private static void measure(TextIndex index, String name, String query) {
+        run(index, query, WARM_UP_NANOS);
+        long start = System.nanoTime();
+        int runs = run(index, query, RUN_NANOS);
+        long micros = (System.nanoTime() - start) / runs / 1000;
+        int found = index.searchRanked(query, LIMIT).size();
+        System.out.printf("%-18s %-10s %6d us (%d found)%n", name, query, micros, found);
+    }
+
+    /**
+     * @return сколько раз выполнен поиск за отведенное время
+     */
+    private static int run(TextIndex index, String query, long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        int runs = 0;
+        while (System.nanoTime() < deadline) {
+            index.searchRanked(query, LIMIT);
+            runs++;
+        }
+        return runs;
+    }
+}
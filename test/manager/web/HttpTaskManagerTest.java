@@ -16,7 +16,10 @@ import task.TaskStatus;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -34,6 +37,7 @@ class HttpTaskManagerTest extends TaskManagerTest<HttpTaskManager> {
 
     @AfterEach
     void tearDown() {
+        taskManager.close();
         server.stop();
     }
 
@@ -62,6 +66,7 @@ class HttpTaskManagerTest extends TaskManagerTest<HttpTaskManager> {
         taskManager.getSubtask(subtask1Id);
 
         taskManager.getHistory();
+        taskManager.flushHistoryLog();
 
         HttpTaskManager httpTaskManager = HttpTaskManager.loadFromServer("http://localhost:8078");
 
@@ -118,6 +123,7 @@ class HttpTaskManagerTest extends TaskManagerTest<HttpTaskManager> {
         taskManager.createSubtask(subtask2);
 
         taskManager.getHistory();
+        taskManager.flushHistoryLog();
 
         HttpTaskManager httpTaskManager = HttpTaskManager.loadFromServer("http://localhost:8078");
 
@@ -188,6 +194,7 @@ class HttpTaskManagerTest extends TaskManagerTest<HttpTaskManager> {
         taskManager.getSubtask(subtaskId1);
 
         taskManager.getHistory();
+        taskManager.flushHistoryLog();
 
         HttpTaskManager httpTaskManager = HttpTaskManager.loadFromServer("http://localhost:8078");
 
@@ -218,4 +225,63 @@ class HttpTaskManagerTest extends TaskManagerTest<HttpTaskManager> {
         assertEquals(epic1, epics.get(0), "Эпики не равны.");
         assertEquals(subtask1, subtasks.get(0), "Подзадачи не равны.");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testHttpTM7_leasedIdsDoNotCollide() {
+        HttpTaskManager first = HttpTaskManager.withLeasedIds("http://localhost:8078", 2);
+        HttpTaskManager second = HttpTaskManager.withLeasedIds("http://localhost:8078", 2);
+
+        Set<Integer> ids = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(first.createTask(new Task("first" + i, "first" + i, TaskStatus.NEW)));
+            ids.add(second.createTask(new Task("second" + i, "second" + i, TaskStatus.NEW)));
+        }
+
+        assertEquals(6, ids.size(), "Менеджеры выдали одинаковые id.");
+
+        HttpTaskManager loaded = HttpTaskManager.loadFromServer("http://localhost:8078", 2);
+        final int taskId = loaded.createTask(new Task("task", "task", TaskStatus.NEW));
+
+        assertTrue(taskId > Collections.max(ids), "Id после загрузки совпадает с выданным ранее.");
+    }
+
+    @Test
+    void testHttpTM8_replayHistoryLog() throws URISyntaxException {
+        final int task1Id = taskManager.createTask(new Task("task1", "task1", TaskStatus.NEW));
+        final int task2Id = taskManager.createTask(new Task("task2", "task2", TaskStatus.NEW));
+
+        taskManager.getTask(task1Id);
+        taskManager.getTask(task2Id);
+        taskManager.getTask(task1Id);
+        taskManager.flushHistoryLog();
+
+        HttpTaskManager loaded = HttpTaskManager.loadFromServer("http://localhost:8078");
+
+        assertEquals(List.of(taskManager.getTask(task2Id), taskManager.getTask(task1Id)), loaded.getHistory(),
+                "Журнал просмотров не восстановлен.");
+
+        loaded.deleteTask(task2Id);
+        HttpTaskManager reloaded = HttpTaskManager.loadFromServer("http://localhost:8078");
+
+        assertEquals(List.of(taskManager.getTask(task1Id)), reloaded.getHistory(),
+                "Неверная история после удаления задачи.");
+    }
+
+    @Test
+    void testHttpTM9_flushHistoryLogInBackground() throws URISyntaxException, InterruptedException {
+        final int task1Id = taskManager.createTask(new Task("task1", "task1", TaskStatus.NEW));
+        final int task2Id = taskManager.createTask(new Task("task2", "task2", TaskStatus.NEW));
+
+        taskManager.getTask(task1Id);
+        taskManager.getTask(task2Id);
+
+        List<Task> history = HttpTaskManager.loadFromServer("http://localhost:8078").getHistory();
+        for (int i = 0; i < 50 && history.size() < 2; i++) {
+            Thread.sleep(100);
+            history = HttpTaskManager.loadFromServer("http://localhost:8078").getHistory();
+        }
+
+        assertEquals(List.of(taskManager.getTask(task1Id), taskManager.getTask(task2Id)), history,
+                "Просмотры не дописаны в журнал в фоне.");
+    }
+}
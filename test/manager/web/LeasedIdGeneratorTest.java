@@ -0,0 +1,117 @@
+package manager.web;
+
+import manager.exception.ManagerSaveException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import server.KVServer;
+import server.KVTaskClient;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LeasedIdGeneratorTest {
+
+    private static final String URL = "http://localhost:" + KVServer.PORT;
+
+    private KVServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new KVServer();
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void testLeased1_noDuplicatesAcrossManagers() throws Exception {
+        final int threads = 4;
+        final int idsPerThread = 1000;
+        List<LeasedIdGenerator> generators = List.of(
+                new LeasedIdGenerator(new KVTaskClient(URL), 7),
+                new LeasedIdGenerator(new KVTaskClient(URL), 7));
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads * generators.size());
+        List<Future<?>> futures = new ArrayList<>();
+        for (LeasedIdGenerator generator : generators) {
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    int last = 0;
+                    for (int j = 0; j < idsPerThread; j++) {
+                        final int id = generator.nextId();
+                        assertTrue(id > last, "Id генератора не возрастают.");
+                        assertTrue(ids.add(id), "Id выдан дважды: " + id);
+                        last = id;
+                    }
+                }));
+            }
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(threads * idsPerThread * generators.size(), ids.size(), "Неверное количество id.");
+    }
+
+    @Test
+    void testLeased2_leaseNextBlockWhenExhausted() {
+        LeasedIdGenerator generator1 = new LeasedIdGenerator(new KVTaskClient(URL), 3);
+        LeasedIdGenerator generator2 = new LeasedIdGenerator(new KVTaskClient(URL), 3);
+
+        assertEquals(1, generator1.nextId(), "Неверный первый id блока.");
+        assertEquals(2, generator1.nextId(), "Неверный id блока.");
+        assertEquals(3, generator1.nextId(), "Неверный последний id блока.");
+        assertEquals(4, generator2.nextId(), "Блоки генераторов пересекаются.");
+        assertEquals(7, generator1.nextId(), "Новый блок не зарезервирован после исчерпания.");
+        assertEquals(5, generator2.nextId(), "Генератор не дочерпал свой блок.");
+    }
+
+    @Test
+    void testLeased3_advanceToPastBlock() {
+        LeasedIdGenerator generator1 = new LeasedIdGenerator(new KVTaskClient(URL), 3);
+        LeasedIdGenerator generator2 = new LeasedIdGenerator(new KVTaskClient(URL), 3);
+        assertEquals(1, generator1.nextId(), "Неверный первый id блока.");
+
+        generator1.advanceTo(2);
+        assertEquals(3, generator1.nextId(), "Сдвиг внутри блока выдал неверный id.");
+
+        generator1.advanceTo(50);
+        assertEquals(51, generator1.nextId(), "Сдвиг за блок выдал неверный id.");
+        assertEquals(54, generator2.nextId(), "Блок после сдвига пересекается с другим генератором.");
+    }
+
+    @Test
+    void testLeased4_lastBlockEndsAtMaxValue() {
+        LeasedIdGenerator generator = new LeasedIdGenerator(new KVTaskClient(URL), 4);
+        generator.advanceTo(Integer.MAX_VALUE - 4);
+
+        assertEquals(Integer.MAX_VALUE - 3, generator.nextId(), "Неверный первый id последнего блока.");
+        assertEquals(Integer.MAX_VALUE - 2, generator.nextId(), "Неверный id последнего блока.");
+        assertEquals(Integer.MAX_VALUE - 1, generator.nextId(), "Неверный id последнего блока.");
+        assertEquals(Integer.MAX_VALUE, generator.nextId(), "Неверный последний id.");
+        assertThrows(ManagerSaveException.class, generator::nextId, "Выдан id больше Integer.MAX_VALUE.");
+    }
+
+    @Test
+    void testLeased5_rejectEmptyBlock() {
+        KVTaskClient client = new KVTaskClient(URL);
+        assertThrows(IllegalArgumentException.class, () -> new LeasedIdGenerator(client, 0),
+                "Создан генератор с пустым блоком.");
+    }
+}
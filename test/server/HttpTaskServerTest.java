@@ -15,12 +15,15 @@ import task.TaskStatus;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -530,4 +533,235 @@ class HttpTaskServerTest {
         assertEquals(subtask2Id, actual.get(1).getId(), "Неправильный порядок задач в списке");
         assertEquals(subtask1Id, actual.get(2).getId(), "Неправильный порядок задач в списке");
     }
-}
\ No newline at end of file
+
+    @Test
+    void test22_getTasksByPeriodAndPage() throws IOException, InterruptedException {
+        LocalDateTime start = LocalDateTime.of(2023, 1, 2, 10, 0);
+        Task task1 = new Task("task1", "task1", TaskStatus.NEW, 30, start);
+        final int task1Id = taskManager.createTask(task1);
+        Task task2 = new Task("task2", "task2", TaskStatus.NEW, 30, start.plusDays(1));
+        final int task2Id = taskManager.createTask(task2);
+        Task task3 = new Task("task3", "task3", TaskStatus.NEW, 30, start.plusDays(8));
+        final int task3Id = taskManager.createTask(task3);
+
+        HttpClient client = HttpClient.newHttpClient();
+        Type taskType = new TypeToken<ArrayList<Task>>() {
+        }.getType();
+
+        URI url = URI.create("http://localhost:8080/tasks/?from=2023-01-02T00:00&to=2023-01-09T00:00");
+        HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode(), "Неверный код статуса.");
+        ArrayList<Task> actual = gson.fromJson(response.body(), taskType);
+        assertEquals(2, actual.size(), "Неверное количество задач за период.");
+        assertEquals(task1Id, actual.get(0).getId(), "Неправильный порядок задач в списке");
+        assertEquals(task2Id, actual.get(1).getId(), "Неправильный порядок задач в списке");
+
+        url = URI.create("http://localhost:8080/tasks/?after=" + task1Id + "&limit=1");
+        request = HttpRequest.newBuilder().uri(url).GET().build();
+        response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode(), "Неверный код статуса.");
+        actual = gson.fromJson(response.body(), taskType);
+        assertEquals(1, actual.size(), "Неверное количество задач на странице.");
+        assertEquals(task2Id, actual.get(0).getId(), "Неверная задача на странице.");
+
+        url = URI.create("http://localhost:8080/tasks/?after=" + task2Id);
+        request = HttpRequest.newBuilder().uri(url).GET().build();
+        response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        actual = gson.fromJson(response.body(), taskType);
+        assertEquals(1, actual.size(), "Неверное количество задач на странице.");
+        assertEquals(task3Id, actual.get(0).getId(), "Неверная задача на странице.");
+    }
+
+    @Test
+    void test23_getTasksByStatus() throws IOException, InterruptedException {
+        Task task1 = new Task("task1", "task1", TaskStatus.IN_PROGRESS);
+        final int task1Id = taskManager.createTask(task1);
+        Task task2 = new Task("task2", "task2", TaskStatus.NEW);
+        taskManager.createTask(task2);
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/tasks/?status=IN_PROGRESS");
+        HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode(), "Неверный код статуса.");
+
+        Type taskType = new TypeToken<ArrayList<Task>>() {
+        }.getType();
+        ArrayList<Task> actual = gson.fromJson(response.body(), taskType);
+
+        assertEquals(1, actual.size(), "Неверное количество задач в списке");
+        assertEquals(task1Id, actual.get(0).getId(), "Неверная задача в списке");
+    }
+
+    @Test
+    void test24_searchTasks() throws IOException, InterruptedException {
+        Task task1 = new Task("Купить молоко", "после работы", TaskStatus.NEW);
+        final int task1Id = taskManager.createTask(task1);
+        Task task2 = new Task("Позвонить", "маме", TaskStatus.NEW);
+        taskManager.createTask(task2);
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/tasks/search?q="
+                + URLEncoder.encode("купить мол", StandardCharsets.UTF_8));
+        HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode(), "Неверный код статуса.");
+
+        Type taskType = new TypeToken<ArrayList<Task>>() {
+        }.getType();
+        ArrayList<Task> actual = gson.fromJson(response.body(), taskType);
+
+        assertEquals(1, actual.size(), "Неверное количество найденных задач");
+        assertEquals(task1Id, actual.get(0).getId(), "Неверная найденная задача");
+    }
+
+    @Test
+    void test25_getOccupancyHeatmap() throws IOException, InterruptedException {
+        Task task1 = new Task("task1", "task1", TaskStatus.NEW, 90, LocalDateTime.of(2023, 1, 2, 9, 0));
+        taskManager.createTask(task1);
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/tasks/occupancy?from=2023-01-02&to=2023-01-03");
+        HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode(), "Неверный код статуса.");
+
+        Type heatmapType = new TypeToken<Map<String, int[]>>() {
+        }.getType();
+        Map<String, int[]> actual = gson.fromJson(response.body(), heatmapType);
+
+        assertEquals(2, actual.size(), "Неверное количество дней в карте занятости.");
+        assertEquals(4, actual.get("2023-01-02")[9], "Неверная занятость часа.");
+        assertEquals(2, actual.get("2023-01-02")[10], "Неверная занятость часа.");
+        assertEquals(0, actual.get("2023-01-03")[9], "Неверная занятость часа.");
+    }
+
+    @Test
+    void test26_getHistoryPage() throws IOException, InterruptedException {
+        final List<Integer> taskIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final int taskId = taskManager.createTask(new Task("task" + i, "task" + i, TaskStatus.NEW));
+            taskManager.getTask(taskId);
+            taskIds.add(taskId);
+        }
+
+        HttpClient client = HttpClient.newHttpClient();
+        Type taskType = new TypeToken<ArrayList<Task>>() {
+        }.getType();
+
+        URI url = URI.create("http://localhost:8080/tasks/history?offset=1&limit=2");
+        HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode(), "Неверный код статуса.");
+        ArrayList<Task> page = gson.fromJson(response.body(), taskType);
+        assertEquals(2, page.size(), "Неверное количество задач на странице истории");
+        assertEquals(taskIds.get(1), page.get(0).getId(), "Неправильная страница истории");
+        assertEquals(taskIds.get(2), page.get(1).getId(), "Неправильная страница истории");
+
+        url = URI.create("http://localhost:8080/tasks/history?last=1");
+        request = HttpRequest.newBuilder().uri(url).GET().build();
+        response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode(), "Неверный код статуса.");
+        ArrayList<Task> recent = gson.fromJson(response.body(), taskType);
+        assertEquals(1, recent.size(), "Неверное количество последних задач истории");
+        assertEquals(taskIds.get(4), recent.get(0).getId(), "Неправильная последняя задача истории");
+    }
+
+    @Test
+    void test27_getSessionHistory() throws IOException, InterruptedException {
+        final int task1Id = taskManager.createTask(new Task("task1", "task1", TaskStatus.NEW));
+        final int task2Id = taskManager.createTask(new Task("task2", "task2", TaskStatus.NEW));
+        final int task3Id = taskManager.createTask(new Task("task3", "task3", TaskStatus.NEW));
+
+        HttpClient client = HttpClient.newHttpClient();
+        client.send(HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/tasks/task?id=" + task1Id))
+                .header(HttpTaskServer.SESSION_HEADER, "alice").GET().build(), HttpResponse.BodyHandlers.ofString());
+        client.send(HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/tasks/task?id=" + task2Id
+                + "&session=bob")).GET().build(), HttpResponse.BodyHandlers.ofString());
+        client.send(HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/tasks/task?id=" + task3Id))
+                .header(HttpTaskServer.SESSION_HEADER, "alice").GET().build(), HttpResponse.BodyHandlers.ofString());
+        taskManager.deleteTask(task3Id);
+
+        HttpRequest request = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/tasks/history"))
+                .header(HttpTaskServer.SESSION_HEADER, "alice").GET().build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode(), "Неверный код статуса.");
+
+        Type taskType = new TypeToken<ArrayList<Task>>() {
+        }.getType();
+        ArrayList<Task> alice = gson.fromJson(response.body(), taskType);
+
+        assertEquals(1, alice.size(), "Неверное количество задач в истории сессии");
+        assertEquals(task1Id, alice.get(0).getId(), "Неправильная история сессии");
+
+        request = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/tasks/history?session=bob"))
+                .GET().build();
+        response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        ArrayList<Task> bob = gson.fromJson(response.body(), taskType);
+
+        assertEquals(1, bob.size(), "Неверное количество задач в истории сессии");
+        assertEquals(task2Id, bob.get(0).getId(), "Неправильная история сессии");
+        assertEquals(2, taskManager.getHistory().size(), "Неверная общая история");
+    }
+
+    @Test
+    void test28_rejectBadOccupancyRange() throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        for (String query : List.of("from=2023-01-02&to=2023-13-01", "from=2023-01-03&to=2023-01-02",
+                "from=2000-01-01&to=9999-12-31")) {
+            URI url = URI.create("http://localhost:8080/tasks/occupancy?" + query);
+            HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(400, response.statusCode(), "Неверный код статуса для " + query);
+        }
+    }
+
+    @Test
+    void test29_rejectBadTaskQuery() throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        for (String query : List.of("status=DONE_", "status=NEW&type=STORY", "from=2023-01-02&to=tomorrow",
+                "after=x", "limit=-1")) {
+            URI url = URI.create("http://localhost:8080/tasks/?" + query);
+            HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(400, response.statusCode(), "Неверный код статуса для " + query);
+        }
+    }
+
+    @Test
+    void test30_rejectBadSearchQuery() throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        for (String query : List.of("", "q=", "q=%20%20", "q=task&limit=ten", "q=task&limit=-5")) {
+            URI url = URI.create("http://localhost:8080/tasks/search?" + query);
+            HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(400, response.statusCode(), "Неверный код статуса для " + query);
+        }
+    }
+
+    @Test
+    void test31_rejectBadHistoryPage() throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        for (String query : List.of("last=x", "last=-1", "offset=-1", "offset=1&limit=all",
+                "session=alice&last=x", "session=alice&offset=-2", "session=alice&limit=1.5")) {
+            URI url = URI.create("http://localhost:8080/tasks/history?" + query);
+            HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(400, response.statusCode(), "Неверный код статуса для " + query);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package server;
+
+import manager.exception.ManagerSaveException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KVServerTest {
+
+    private static final String URL = "http://localhost:" + KVServer.PORT + "/";
+
+    private KVServer server;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new KVServer();
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void testKV1_reserveConsecutiveBlocks() {
+        KVTaskClient kvClient = new KVTaskClient(URL);
+
+        assertEquals(1, kvClient.reserve("ids", 10, 0), "Неверный первый блок.");
+        assertEquals(11, kvClient.reserve("ids", 5, 0), "Блок пересекается с предыдущим.");
+        assertEquals(101, kvClient.reserve("ids", 5, 100), "Блок начинается не после after.");
+        assertEquals(106, kvClient.reserve("ids", 1, 50), "Счетчик сдвинулся назад.");
+        assertEquals(1, kvClient.reserve("other", 1, 0), "Счетчики ключей не независимы.");
+    }
+
+    @Test
+    void testKV2_rejectWrongReserveRequests() throws IOException, InterruptedException {
+        final String token = send(HttpRequest.newBuilder().uri(URI.create(URL + "register")).GET().build()).body();
+
+        assertEquals(403, reserve("reserve/ids?size=1").statusCode(), "Запрос без ключа API принят.");
+        assertEquals(405, send(HttpRequest.newBuilder()
+                        .uri(URI.create(URL + "reserve/ids?API_TOKEN=" + token)).GET().build()).statusCode(),
+                "GET-запрос принят.");
+        assertEquals(400, reserve("reserve/?API_TOKEN=" + token).statusCode(), "Принят пустой ключ.");
+        assertEquals(400, reserve("reserve/ids?API_TOKEN=" + token + "&size=0").statusCode(),
+                "Принят пустой блок.");
+        assertEquals(400, reserve("reserve/ids?API_TOKEN=" + token + "&size=abc").statusCode(),
+                "Принят нечисловой размер.");
+        assertEquals(400, reserve("reserve/ids?API_TOKEN=" + token + "&after=-1").statusCode(),
+                "Принят отрицательный after.");
+
+        HttpResponse<String> response = reserve("reserve/ids?API_TOKEN=" + token + "&size=3");
+        assertEquals(200, response.statusCode(), "Неверный код статуса.");
+        assertEquals("1", response.body(), "Отклоненные запросы сдвинули счетчик.");
+    }
+
+    @Test
+    void testKV3_refuseIdsPastMaxValue() {
+        KVTaskClient kvClient = new KVTaskClient(URL);
+
+        assertEquals(Integer.MAX_VALUE - 9, kvClient.reserve("ids", 10, Integer.MAX_VALUE - 10),
+                "Неверный последний блок.");
+        assertThrows(ManagerSaveException.class, () -> kvClient.reserve("ids", 1, 0),
+                "Зарезервирован id больше Integer.MAX_VALUE.");
+    }
+
+    private HttpResponse<String> reserve(String path) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder().uri(URI.create(URL + path))
+                .POST(HttpRequest.BodyPublishers.noBody()).build());
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,69 @@
+package util;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+/**
+ * Замер памяти, которую занимают коллекции с 1 000 000 последовательных ключей: HashMap против IntObjectMap
+ * и LinkedHashSet против IntSet. Считается разница занятой кучи до заполнения и после, после сборки мусора.
+ * Значения карт — один общий объект, чтобы в замер попали только сами таблицы и упакованные ключи.
+ * Запускать отдельно от тестов: java -cp ... util.CollectionMemoryBenchmark
+ */
+public class CollectionMemoryBenchmark {
+
+    private static final int ENTRIES = 1_000_000;
+
+    private static final Object VALUE = new Object();
+
+    private static Object retained;    // держит коллекцию, пока идет замер
+
+    public static void main(String[] args) {
+        report("HashMap<Integer, V>", n -> {
+            Map<Integer, Object> map = new HashMap<>();
+            for (int i = 1; i <= n; i++) {
+                map.put(i, VALUE);
+            }
+            return map;
+        });
+        report("IntObjectMap<V>", n -> {
+            IntObjectMap<Object> map = new IntObjectMap<>();
+            for (int i = 1; i <= n; i++) {
+                map.put(i, VALUE);
+            }
+            return map;
+        });
+        report("LinkedHashSet<Integer>", n -> {
+            Set<Integer> set = new LinkedHashSet<>();
+            for (int i = 1; i <= n; i++) {
+                set.add(i);
+            }
+            return set;
+        });
+        report("IntSet", n -> {
+            IntSet set = new IntSet();
+            for (int i = 1; i <= n; i++) {
+                set.add(i);
+            }
+            return set;
+        });
+    }
+
+    private static void report(String name, IntFunction<Object> fill) {
+        long before = usedHeap();
+        retained = fill.apply(ENTRIES);
+        long bytes = usedHeap() - before;
+        retained = null;
+        System.out.printf("%-24s %6.1f MB (%5.1f B/entry)%n", name, bytes / 1e6, (double) bytes / ENTRIES);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,52 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntIntMapTest {
+
+    @Test
+    void test1_keepZeroKeyApart() {
+        IntIntMap map = new IntIntMap();
+        map.put(0, 7);
+        map.put(16, 8);
+
+        assertEquals(7, map.getOrDefault(0, -1), "Неверное значение ключа 0.");
+        assertEquals(2, map.size(), "Неверный размер таблицы.");
+        assertEquals(7, map.remove(0, -1), "Неверное удаленное значение.");
+        assertFalse(map.containsKey(0), "Удаленный ключ 0 находится.");
+        assertEquals(-1, map.remove(0, -1), "Повторное удаление вернуло значение.");
+        assertEquals(8, map.getOrDefault(16, -1), "Неверное значение ключа.");
+    }
+
+    @Test
+    void test2_matchHashMapUnderRandomUpdates() {
+        IntIntMap map = new IntIntMap();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(21);
+        for (int step = 0; step < 200_000; step++) {
+            // ключи i * 65537 сталкиваются в одной цепочке, остальные разбросаны вокруг нуля
+            final int key = random.nextBoolean() ? random.nextInt(64) * 65537 : random.nextInt(2000) - 1000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.getOrDefault(key, -1), map.remove(key, -1), "Неверное удаленное значение.");
+                expected.remove(key);
+            } else {
+                expected.put(key, step);
+                map.put(key, step);
+            }
+        }
+
+        assertEquals(expected.size(), map.size(), "Неверный размер таблицы.");
+        for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertTrue(map.containsKey(entry.getKey()), "Ключ не находится: " + entry.getKey());
+            assertEquals(entry.getValue(), map.getOrDefault(entry.getKey(), -1), "Неверное значение ключа.");
+        }
+    }
+}
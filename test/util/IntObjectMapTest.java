@@ -0,0 +1,119 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntObjectMapTest {
+
+    @Test
+    void test1_findKeysDisplacedByCollisions() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        // у ключей i * 65537 младшие 16 бит хеша нулевые, поэтому все они попадают в одну цепочку
+        for (int i = 1; i <= 6; i++) {
+            map.put(i * 65537, "v" + i);
+        }
+
+        assertEquals("v3", map.remove(3 * 65537), "Неверное удаленное значение.");
+        assertNull(map.get(3 * 65537), "Удаленный ключ находится.");
+        for (int i = 1; i <= 6; i++) {
+            if (i != 3) {
+                assertEquals("v" + i, map.get(i * 65537), "Сдвинутый ключ не находится после удаления.");
+            }
+        }
+        assertEquals(5, map.size(), "Неверный размер таблицы.");
+    }
+
+    @Test
+    void test2_wrapAroundTableEnd() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        // ключи 15, 31 и 47 попадают в последнюю ячейку таблицы из 16 ячеек и продолжаются с ее начала
+        map.put(15, "a");
+        map.put(31, "b");
+        map.put(47, "c");
+        map.put(0, "zero");
+
+        assertEquals("a", map.remove(15), "Неверное удаленное значение.");
+        assertEquals("b", map.get(31), "Ключ за концом таблицы не находится.");
+        assertEquals("c", map.get(47), "Ключ за концом таблицы не находится.");
+        assertEquals("zero", map.get(0), "Ключ 0 не находится.");
+
+        assertEquals("b", map.remove(31), "Неверное удаленное значение.");
+        assertEquals("c", map.get(47), "Ключ за концом таблицы не находится.");
+        assertEquals("zero", map.get(0), "Ключ 0 не находится.");
+    }
+
+    @Test
+    void test3_resizeKeepsZeroAndNegativeKeys() {
+        IntObjectMap<Integer> map = new IntObjectMap<>();
+        for (int i = -5000; i <= 5000; i++) {
+            map.put(i, i);
+        }
+
+        assertEquals(10001, map.size(), "Неверный размер таблицы.");
+        for (int i = -5000; i <= 5000; i++) {
+            assertEquals(i, map.get(i), "Ключ потерян при расширении таблицы.");
+        }
+        assertEquals(Integer.valueOf(0), map.get(0), "Ключ 0 потерян.");
+        assertEquals(Integer.valueOf(Integer.MIN_VALUE), map.computeIfAbsent(Integer.MIN_VALUE, key -> key),
+                "Неверное значение для наименьшего ключа.");
+        assertTrue(map.containsKey(Integer.MIN_VALUE), "Наименьший ключ не находится.");
+        assertThrows(NullPointerException.class, () -> map.put(1, null), "Таблица приняла значение null.");
+    }
+
+    @Test
+    void test4_matchHashMapUnderRandomUpdates() {
+        IntObjectMap<Integer> map = new IntObjectMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(8);
+        for (int step = 0; step < 200_000; step++) {
+            final int key = random.nextInt(2000) - 1000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key), "Неверное удаленное значение.");
+            } else {
+                assertEquals(expected.put(key, step), map.put(key, step), "Неверное прежнее значение.");
+            }
+            if (step % 10_000 == 0) {
+                assertEquals(expected.size(), map.size(), "Неверный размер таблицы.");
+                for (int probe = -1000; probe < 1000; probe++) {
+                    assertEquals(expected.get(probe), map.get(probe), "Неверное значение ключа " + probe);
+                }
+            }
+        }
+        List<Integer> values = new ArrayList<>(map.values());
+        values.sort(null);
+        List<Integer> expectedValues = new ArrayList<>(expected.values());
+        expectedValues.sort(null);
+
+        assertEquals(expectedValues, values, "Обход после удалений вернул не те значения.");
+    }
+
+    @Test
+    void test5_failFastIteration() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        map.put(1, "a");
+        map.put(2, "b");
+        Iterator<String> iterator = map.values().iterator();
+        iterator.next();
+        map.remove(2);
+
+        assertThrows(ConcurrentModificationException.class, iterator::next, "Обход не заметил изменения.");
+
+        map.clear();
+
+        assertTrue(map.isEmpty(), "Таблица не пустая после очистки.");
+        assertFalse(map.values().iterator().hasNext(), "Обход пустой таблицы вернул значения.");
+    }
+}
@@ -0,0 +1,118 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntSetTest {
+
+    @Test
+    void test1_findValuesDisplacedByCollisions() {
+        IntSet set = new IntSet();
+        // у значений i * 65537 младшие 16 бит хеша нулевые, поэтому все они попадают в одну цепочку
+        for (int i = 1; i <= 6; i++) {
+            set.add(i * 65537);
+        }
+
+        assertTrue(set.remove(2 * 65537), "Значение не удалено.");
+        assertFalse(set.contains(2 * 65537), "Удаленное значение находится.");
+        for (int i = 1; i <= 6; i++) {
+            assertEquals(i != 2, set.contains(i * 65537), "Неверный поиск значения после удаления.");
+        }
+    }
+
+    @Test
+    void test2_wrapAroundTableEnd() {
+        IntSet set = new IntSet();
+        // значения 7 и 15 попадают в последнюю ячейку таблицы из 8 ячеек, 15 продолжается с ее начала
+        set.add(7);
+        set.add(15);
+        set.add(0);
+
+        assertTrue(set.remove(7), "Значение не удалено.");
+        assertTrue(set.contains(15), "Значение за концом таблицы не находится.");
+        assertTrue(set.contains(0), "Значение 0 не находится.");
+        assertArrayEquals(new int[]{15, 0}, set.toArray(), "Неверный порядок обхода.");
+    }
+
+    @Test
+    void test3_keepInsertionOrderAcrossResize() {
+        IntSet set = new IntSet();
+        for (int i = 1000; i >= -1000; i--) {
+            set.add(i);
+        }
+        for (int i = -1000; i <= 1000; i += 2) {
+            set.remove(i);
+        }
+        set.add(-1000);
+        for (int i = 2000; i < 3000; i++) {
+            set.add(i);
+        }
+
+        int[] expected = new int[2001];
+        int size = 0;
+        for (int i = 999; i >= -999; i -= 2) {
+            expected[size++] = i;
+        }
+        expected[size++] = -1000;
+        for (int i = 2000; i < 3000; i++) {
+            expected[size++] = i;
+        }
+
+        assertEquals(size, set.size(), "Неверный размер множества.");
+        assertArrayEquals(Arrays.copyOf(expected, size), set.toArray(), "Неверный порядок обхода.");
+        assertFalse(set.contains(0), "Удаленное значение 0 находится.");
+        assertTrue(set.contains(-999), "Отрицательное значение не находится.");
+    }
+
+    @Test
+    void test4_matchLinkedHashSetUnderRandomUpdates() {
+        IntSet set = new IntSet();
+        Set<Integer> expected = new LinkedHashSet<>();
+        Random random = new Random(8);
+        for (int step = 0; step < 100_000; step++) {
+            final int value = random.nextInt(500) - 250;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value), "Неверный результат удаления.");
+            } else {
+                assertEquals(expected.add(value), set.add(value), "Неверный результат добавления.");
+            }
+            if (step % 5_000 == 0) {
+                assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), set.toArray(),
+                        "Обход после удалений не совпадает с LinkedHashSet.");
+            }
+        }
+        StringBuilder visited = new StringBuilder();
+        set.forEach(value -> visited.append(value).append(' '));
+        StringBuilder expectedVisited = new StringBuilder();
+        expected.forEach(value -> expectedVisited.append(value).append(' '));
+
+        assertEquals(expectedVisited.toString(), visited.toString(), "Неверный порядок forEach.");
+    }
+
+    @Test
+    void test5_compareContentsIgnoringOrder() {
+        IntSet first = new IntSet();
+        IntSet second = new IntSet();
+        first.add(1);
+        first.add(2);
+        second.add(2);
+        second.add(1);
+
+        assertEquals(first, second, "Множества с одинаковыми значениями не равны.");
+        assertEquals(first.hashCode(), second.hashCode(), "Неверный хеш множества.");
+
+        second.remove(1);
+        second.clear();
+
+        assertTrue(second.isEmpty(), "Множество не пустое после очистки.");
+    }
+}